@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sinkmapper;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.output.sink.SinkListener;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.extension.holder.ExternalReferencedHolder;
+import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the newest event per conflation key and publishes the retained events as a single batch on a fixed
+ * interval, so that events superseded within the interval are never mapped. The number of retained keys is bounded,
+ * and a new key arriving while the bound is reached flushes the retained events right away. Flushes are serialized,
+ * so that the retained events are published by one thread at a time. The conflator is registered with the Siddhi
+ * app, which cancels the scheduled flushes when the app shuts down.
+ */
+class Conflator implements ExternalReferencedHolder {
+
+    private static final Logger log = LogManager.getLogger(Conflator.class);
+    private static final Object NULL_KEY = new Object();
+
+    private final String streamId;
+    private final int keyPosition;
+    private final int maxKeys;
+    private final long intervalMillis;
+    private final BiConsumer<Event[], SinkListener> publisher;
+    private final SiddhiAppContext siddhiAppContext;
+    private final ThroughputTracker supersededTracker;
+
+    private final ConcurrentHashMap<Object, Event> pending = new ConcurrentHashMap<>();
+    private final AtomicLong supersededCount = new AtomicLong();
+    private volatile SinkListener sinkListener;
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * @param streamId         id of the stream being published.
+     * @param keyPosition      position of the conflation key attribute in the event data.
+     * @param maxKeys          maximum number of keys to retain between flushes.
+     * @param intervalMillis   time between flushes in milliseconds.
+     * @param publisher        maps and publishes the retained events.
+     * @param siddhiAppContext context of the Siddhi app, providing the scheduler.
+     */
+    Conflator(String streamId, int keyPosition, int maxKeys, long intervalMillis,
+              BiConsumer<Event[], SinkListener> publisher, SiddhiAppContext siddhiAppContext) {
+        this.streamId = streamId;
+        this.keyPosition = keyPosition;
+        this.maxKeys = maxKeys;
+        this.intervalMillis = intervalMillis;
+        this.publisher = publisher;
+        this.siddhiAppContext = siddhiAppContext;
+        this.supersededTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, streamId,
+                SiddhiConstants.METRIC_INFIX_SINK_MAPPERS, "keyvalue.conflated");
+    }
+
+    /**
+     * Retains an event until the next flush, replacing the retained event with the same key.
+     *
+     * @param event        the event, which is copied as the caller may reuse it.
+     * @param sinkListener listener to publish the retained events to.
+     */
+    void add(Event event, SinkListener sinkListener) {
+        if (this.sinkListener == null) {
+            schedule(sinkListener);
+        }
+        Object key = event.getData(keyPosition);
+        if (key == null) {
+            key = NULL_KEY;
+        }
+        if (pending.size() >= maxKeys && !pending.containsKey(key)) {
+            flush();
+        }
+        Event copy = new Event(event.getTimestamp(), event.getData().clone());
+        copy.setIsExpired(event.isExpired());
+        if (pending.put(key, copy) != null) {
+            supersededCount.incrementAndGet();
+            if (supersededTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+                supersededTracker.eventIn();
+            }
+        }
+    }
+
+    /**
+     * Publishes the retained events as a single batch.
+     */
+    synchronized void flush() {
+        SinkListener listener = sinkListener;
+        if (listener == null || pending.isEmpty()) {
+            return;
+        }
+        List<Event> events = new ArrayList<>(pending.size());
+        for (Object key : pending.keySet()) {
+            Event event = pending.remove(key);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        if (!events.isEmpty()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Publishing " + events.size() + " conflated events of stream \"" + streamId + "\". " +
+                        "Events superseded so far: " + supersededCount.get());
+            }
+            publisher.accept(events.toArray(new Event[0]), listener);
+        }
+    }
+
+    /**
+     * Flushes are scheduled once the first event is retained, hence nothing is done when the app starts.
+     */
+    @Override
+    public void start() {
+    }
+
+    /**
+     * Cancels the scheduled flushes, which are scheduled again once an event is retained after the app restarts.
+     */
+    @Override
+    public synchronized void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        sinkListener = null;
+    }
+
+    private synchronized void schedule(SinkListener sinkListener) {
+        if (flushTask != null) {
+            return;
+        }
+        this.sinkListener = sinkListener;
+        flushTask = siddhiAppContext.getScheduledExecutorService().scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Error is encountered when publishing the conflated events of stream \"" + streamId +
+                        "\". " + e.getMessage() + " Hence dropping the events.", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -20,17 +20,35 @@ package io.siddhi.extension.map.keyvalue.sinkmapper;
 
 import io.siddhi.annotation.Example;
 import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.util.DataType;
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.stream.output.sink.SinkListener;
 import io.siddhi.core.stream.output.sink.SinkMapper;
 import io.siddhi.core.util.config.ConfigReader;
 import io.siddhi.core.util.transport.OptionHolder;
 import io.siddhi.core.util.transport.TemplateBuilder;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameWriter;
+import io.siddhi.extension.map.keyvalue.util.ColumnarFrameWriter;
+import io.siddhi.extension.map.keyvalue.util.CompressionUtil;
+import io.siddhi.extension.map.keyvalue.util.LastValueCache;
+import io.siddhi.extension.map.keyvalue.util.StringDictionary;
 import io.siddhi.query.api.definition.StreamDefinition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mapper class convert a Siddhi message to a Key Value pairs
@@ -42,6 +60,148 @@ import java.util.Map;
                 "processed by WSO2 SP to key-value map events before publishing them. You can either use " +
                 "pre-defined keys where conversion takes place without extra configurations, or use custom keys " +
                 "with which the messages can be published.",
+        parameters = {
+                @Parameter(name = "output.format",
+                        description = " Format of the published messages. With `map` each event is published as " +
+                                "a key-value map. With `binary` the events of each batch are published together as " +
+                                "a single length prefixed binary frame of key-value records, which the `keyvalue` " +
+                                "source mapper decodes back into the same batch of events. With `text` each event " +
+                                "is published as a text string of key-value pairs such as " +
+                                "`symbol=WSO2;price=55.6;volume=100`, which the `keyvalue` source mapper parses with " +
+                                "`input.format='text'`. Null values are left out of text messages, and delimiters, " +
+                                "backslashes and leading or trailing whitespace within keys and values are escaped " +
+                                "with a backslash. With `sparse` the events of each batch are published together as " +
+                                "a single binary frame that holds the keys once, followed by a presence bitmap and " +
+                                "the non-null values of each event, which suits streams where most attributes are " +
+                                "null. With `columnar` the events of each batch are published together as a single " +
+                                "binary frame that holds each key once, followed by a null bitmap and the values of " +
+                                "all events for that key, where numeric and bool values are written as fixed width " +
+                                "primitives, which suits bulk transfers of large batches. With `schema` the events " +
+                                "of each batch are published as a single binary frame like the `sparse` one, " +
+                                "except that the keys are identified by a fingerprint and only sent every " +
+                                "`schema.sync.interval` frames, while the `keyvalue` source mapper caches a plan per " +
+                                "fingerprint to decode the values by position, which suits producers and consumers " +
+                                "whose keys drift as they are upgraded independently.",
+                        defaultValue = "map",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "text.pair.delimiter",
+                        description = " ASCII character separating the key-value pairs of text messages.",
+                        defaultValue = ";",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "text.key.value.delimiter",
+                        description = " ASCII character separating a key from its value in text messages.",
+                        defaultValue = "=",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "omit.nulls",
+                        description = " If this parameter is set to `true`, keys with null values are left out of " +
+                                "the published key-value maps and binary records.",
+                        defaultValue = "false",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "nested.keys",
+                        description = " If this parameter is set to `true`, dotted payload keys such as `order.px` " +
+                                "are published as nested key-value maps, where `order` holds a map with the key " +
+                                "`px`. Only applies to the `map` output format.",
+                        defaultValue = "false",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "delta.key",
+                        description = " Payload key that identifies the entity an event belongs to. When given, " +
+                                "the first event of each entity is published in full, and subsequent events only " +
+                                "carry this key and the keys whose values changed since the previous event of the " +
+                                "same entity, where a change to null is published as a null value. The `keyvalue` " +
+                                "source mapper rebuilds the full events when it is given the same `delta.key`. Only " +
+                                "applies to the `map` output format, and cannot be used with `nested.keys` or " +
+                                "`omit.nulls`.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "delta.cache.size",
+                        description = " Maximum number of entities whose last published values are retained for " +
+                                "delta encoding. The next event of an evicted entity is published in full, and as " +
+                                "the values are not persisted, every entity starts with a full event after a " +
+                                "restart.",
+                        defaultValue = "10000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "delta.sync.interval",
+                        description = " Number of events after which the last published values of all entities " +
+                                "are discarded, so that the next event of every entity is published in full. This " +
+                                "lets source mappers that restarted, or that evicted an entity from their cache, " +
+                                "rebuild the events of the entity again. `0` only publishes full events for new and " +
+                                "evicted entities.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "conflation.key",
+                        description = " Attribute to conflate events by. When given, only the newest event of each " +
+                                "value of the attribute is retained, and the retained events are mapped and " +
+                                "published together as one batch every `conflation.interval`, that is as a list of " +
+                                "maps with the uncompressed `map` output format, and as a single frame with the " +
+                                "binary output formats. Events superseded within an interval are counted and never " +
+                                "mapped. Retained events that have not been published yet are lost when the Siddhi " +
+                                "app shuts down. As the retained events are published off the threads that sent " +
+                                "them, dynamic options of the sink, such as `topic='{{symbol}}'`, are not supported " +
+                                "with conflation.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "conflation.interval",
+                        description = " Time, in milliseconds, between the publications of conflated events.",
+                        defaultValue = "100",
+                        optional = true,
+                        type = {DataType.LONG}),
+                @Parameter(name = "conflation.max.keys",
+                        description = " Maximum number of conflation keys retained between publications. When an " +
+                                "event with a new key arrives while this limit is reached, the retained events are " +
+                                "published right away.",
+                        defaultValue = "10000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "schema.sync.interval",
+                        description = " Number of frames after which the keys of the `schema` output format are " +
+                                "sent again, so that source mappers that started late can decode the frames. The " +
+                                "keys are sent with the first frame in any case.",
+                        defaultValue = "100",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "dictionary.keys",
+                        description = " Comma separated payload keys whose string values are dictionary encoded. " +
+                                "Each distinct value is written once as a dictionary entry, and as a 4 byte entry " +
+                                "number wherever it occurs. Each frame carries the entries added since the previous " +
+                                "frame, and the `keyvalue` source mapper resolves entry numbers to the same " +
+                                "`String` instances. Frames are written and published one at a time, and have to be " +
+                                "received in the order they are published. Only applies to the `binary`, " +
+                                "`sparse` and `schema` output formats.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "dictionary.max.size",
+                        description = " Maximum number of dictionary entries. Once the dictionary is full, new " +
+                                "values are written as text.",
+                        defaultValue = "10000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "dictionary.sync.interval",
+                        description = " Number of frames after which all dictionary entries are sent again, so " +
+                                "that source mappers that started late or missed a frame can resolve all values " +
+                                "again.",
+                        defaultValue = "100",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "compression",
+                        description = " When set to `deflate` or `gzip`, the published message is compressed with " +
+                                "the given compression and published as a byte array. Key-value maps are Java " +
+                                "serialized before they are compressed. The `keyvalue` source mapper detects the " +
+                                "compression from the payload itself. Compression is not supported with the `text` " +
+                                "output format.",
+                        defaultValue = "none",
+                        optional = true,
+                        type = {DataType.STRING})
+        },
         examples = {
                 @Example(
                         syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue'))\n"
@@ -76,12 +236,155 @@ import java.util.Map;
                                 + "a:'WSO2 is here'\n"
                                 + "b : 'price'\n"
                                 + "c: 100L"
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', compression='gzip'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query performs a default Key-Value output mapping, and publishes the " +
+                                "map as a gzip compressed, Java serialized byte array."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "output.format='binary'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each batch of events as a single byte array holding " +
+                                "one binary key-value record per event, with the keys `symbol`, `price` and " +
+                                "`volume`."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', output.format='text', "
+                                + "text.pair.delimiter=',', @payload(s='symbol',p='price',v='volume')))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each event as a text string similar to the following: \n"
+                                + "s=WSO2,p=55.6,v=100"
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', nested.keys='true', "
+                                + "@payload('symbol'='symbol','order.px'='price','order.qty'='volume')))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each event as a nested map similar to the following: \n"
+                                + "symbol: 'WSO2'\n"
+                                + "order: {px: 55.6f, qty: 100L}"
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', omit.nulls='true'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query performs a default Key-Value output mapping, where an event with " +
+                                "a null `price` is published as a map similar to the following: \n"
+                                + "symbol:'WSO2' \n"
+                                + "volume: 100L"
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "output.format='sparse'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each batch of events as a single byte array holding " +
+                                "the keys `symbol`, `price` and `volume` once, followed by a presence bitmap and the " +
+                                "non-null values of each event."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "output.format='schema', schema.sync.interval='1000'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each batch of events as a single byte array holding " +
+                                "the fingerprint of the keys `symbol`, `price` and `volume`, followed by a presence " +
+                                "bitmap and the non-null values of each event. The keys themselves are only sent " +
+                                "with every 1000th frame."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "output.format='columnar'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each batch of events as a single byte array holding " +
+                                "the `symbol` values of all events, followed by their `price` values as an array " +
+                                "of floats and their `volume` values as an array of longs."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', delta.key='symbol'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes the first event of each symbol in full. When the next " +
+                                "event of the symbol only differs in price, it is published as a map similar to the " +
+                                "following: \n"
+                                + "symbol:'WSO2' \n"
+                                + "price : 56.1f"
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "conflation.key='symbol', conflation.interval='100'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes the latest event of each symbol every 100 milliseconds, " +
+                                "dropping the events superseded within each interval before they are mapped."
+                ),
+
+                @Example(
+                        syntax = "@sink(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                                "output.format='binary', dictionary.keys='symbol'))\n"
+                                + "define stream FooStream (symbol string, price float, volume long);\n",
+                        description = "This query publishes each batch of events as a binary frame, where each " +
+                                "symbol is sent once as a dictionary entry and the records refer to it by number."
                 )
         }
 )
 public class KeyValueSinkMapper extends SinkMapper {
 
+    private static final String OUTPUT_FORMAT = "output.format";
+    private static final String COMPRESSION = "compression";
+    private static final String NESTED_KEYS = "nested.keys";
+    private static final String OMIT_NULLS = "omit.nulls";
+    private static final String DELTA_KEY = "delta.key";
+    private static final String DELTA_CACHE_SIZE = "delta.cache.size";
+    private static final String DELTA_SYNC_INTERVAL = "delta.sync.interval";
+    private static final String CONFLATION_KEY = "conflation.key";
+    private static final String CONFLATION_INTERVAL = "conflation.interval";
+    private static final String CONFLATION_MAX_KEYS = "conflation.max.keys";
+    private static final String SCHEMA_SYNC_INTERVAL = "schema.sync.interval";
+    private static final String DICTIONARY_KEYS = "dictionary.keys";
+    private static final String DICTIONARY_MAX_SIZE = "dictionary.max.size";
+    private static final String DICTIONARY_SYNC_INTERVAL = "dictionary.sync.interval";
+    private static final String TEXT_PAIR_DELIMITER = "text.pair.delimiter";
+    private static final String TEXT_KEY_VALUE_DELIMITER = "text.key.value.delimiter";
+    private static final char ESCAPE = '\\';
+    private static final int MAX_RETAINED_TEXT_BUFFER_SIZE = 64 * 1024;
+    private static final Logger log = LogManager.getLogger(KeyValueSinkMapper.class);
+    private static final ThreadLocal<ReusableByteArrayOutputStream> SERIALIZATION_BUFFER =
+            ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+    private static final ThreadLocal<BinaryFrameWriter> FRAME_WRITER =
+            ThreadLocal.withInitial(BinaryFrameWriter::new);
+    private static final ThreadLocal<ColumnarFrameWriter> COLUMNAR_FRAME_WRITER =
+            ThreadLocal.withInitial(ColumnarFrameWriter::new);
+    private static final ThreadLocal<StringBuilder> TEXT_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
     private String[] attributeNameArray;
+    private CompressionUtil.Compression compression;
+    private OutputFormat outputFormat;
+    private byte[][] encodedKeys;
+    private TemplateBuilder[] payloadTemplateBuilders;
+    private String[] textKeys;
+    private char pairDelimiter;
+    private char keyValueDelimiter;
+    private NestedMapBuilder nestedMapBuilder;
+    private boolean omitNulls;
+    private String[] outputKeys;
+    private LastValueCache deltaCache;
+    private int deltaKeyIndex = -1;
+    private int deltaSyncInterval;
+    private final AtomicLong deltaEventCount = new AtomicLong();
+    private Conflator conflator;
+    private StringDictionary dictionary;
+    private long schemaFingerprint;
+    private int schemaSyncInterval;
+    private final AtomicLong schemaFrameCount = new AtomicLong();
+    private StringDictionary[] keyDictionaries;
 
     @Override
     public String[] getSupportedDynamicOptions() {
@@ -93,40 +396,495 @@ public class KeyValueSinkMapper extends SinkMapper {
                      Map<String, TemplateBuilder> templateBuilder,
                      ConfigReader configReader, SiddhiAppContext siddhiAppContext) {
         attributeNameArray = streamDefinition.getAttributeNameArray();
+        String compressionOption = optionHolder.validateAndGetStaticValue(COMPRESSION, "none");
+        try {
+            compression = CompressionUtil.parse(compressionOption);
+        } catch (IllegalArgumentException e) {
+            throw new SiddhiAppCreationException("Unsupported " + COMPRESSION + " '" + compressionOption + "' in " +
+                    "the keyvalue sink mapper of stream '" + streamDefinition.getId() + "', expected 'none', " +
+                    "'deflate' or 'gzip'.", e);
+        }
+        String outputFormatOption = optionHolder.validateAndGetStaticValue(OUTPUT_FORMAT, "map");
+        try {
+            outputFormat = OutputFormat.valueOf(outputFormatOption.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SiddhiAppCreationException("Unsupported " + OUTPUT_FORMAT + " '" + outputFormatOption + "' in " +
+                    "the keyvalue sink mapper of stream '" + streamDefinition.getId() + "', expected 'map', " +
+                    "'binary', 'text', 'sparse', 'columnar' or 'schema'.", e);
+        }
+        omitNulls = Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(OMIT_NULLS, "false"));
+        String[] keys = attributeNameArray;
+        if (templateBuilder != null) {
+            keys = templateBuilder.keySet().toArray(new String[0]);
+            payloadTemplateBuilders = new TemplateBuilder[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                payloadTemplateBuilders[i] = templateBuilder.get(keys[i]);
+            }
+        }
+        if (outputFormat == OutputFormat.BINARY || outputFormat == OutputFormat.SPARSE ||
+                outputFormat == OutputFormat.SCHEMA || outputFormat == OutputFormat.COLUMNAR) {
+            encodedKeys = BinaryFrameWriter.encodeKeys(keys);
+        }
+        if (outputFormat == OutputFormat.SCHEMA) {
+            schemaFingerprint = BinaryFrameWriter.fingerprint(encodedKeys);
+            schemaSyncInterval = Integer.parseInt(optionHolder.validateAndGetStaticValue(SCHEMA_SYNC_INTERVAL, "100"));
+            if (schemaSyncInterval <= 0) {
+                throw new SiddhiAppCreationException("The " + SCHEMA_SYNC_INTERVAL + " of the keyvalue sink mapper " +
+                        "of stream '" + streamDefinition.getId() + "' should be positive, but found " +
+                        schemaSyncInterval + ".");
+            }
+        }
+        if (outputFormat == OutputFormat.MAP && payloadTemplateBuilders != null &&
+                Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(NESTED_KEYS, "false")) &&
+                NestedMapBuilder.hasPaths(keys)) {
+            nestedMapBuilder = new NestedMapBuilder(keys);
+        }
+        outputKeys = keys;
+        String deltaKey = optionHolder.validateAndGetStaticValue(DELTA_KEY, null);
+        if (deltaKey != null) {
+            deltaKeyIndex = Arrays.asList(keys).indexOf(deltaKey);
+            if (outputFormat != OutputFormat.MAP || nestedMapBuilder != null) {
+                throw new SiddhiAppCreationException("The " + DELTA_KEY + " of the keyvalue sink mapper of stream '" +
+                        streamDefinition.getId() + "' can only be used with the map output format without " +
+                        NESTED_KEYS + ".");
+            } else if (deltaKeyIndex < 0) {
+                throw new SiddhiAppCreationException("The " + DELTA_KEY + " '" + deltaKey + "' of the keyvalue " +
+                        "sink mapper of stream '" + streamDefinition.getId() + "' is not one of the published keys " +
+                        Arrays.toString(keys) + ".");
+            }
+            if (omitNulls) {
+                throw new SiddhiAppCreationException("The " + DELTA_KEY + " of the keyvalue sink mapper of stream '" +
+                        streamDefinition.getId() + "' cannot be used with " + OMIT_NULLS + ", as values that " +
+                        "change to null are published as null values.");
+            }
+            deltaCache = new LastValueCache((int) toPositive(DELTA_CACHE_SIZE,
+                    optionHolder.validateAndGetStaticValue(DELTA_CACHE_SIZE, "10000"), Integer.MAX_VALUE,
+                    streamDefinition.getId()));
+            deltaSyncInterval = Integer.parseInt(optionHolder.validateAndGetStaticValue(DELTA_SYNC_INTERVAL, "0"));
+            if (deltaSyncInterval < 0) {
+                throw new SiddhiAppCreationException("The " + DELTA_SYNC_INTERVAL + " of the keyvalue sink mapper " +
+                        "of stream '" + streamDefinition.getId() + "' cannot be negative, but found " +
+                        deltaSyncInterval + ".");
+            }
+        }
+        if (outputFormat == OutputFormat.TEXT) {
+            if (compression != CompressionUtil.Compression.NONE) {
+                throw new SiddhiAppCreationException("The keyvalue sink mapper of stream '" +
+                        streamDefinition.getId() + "' does not support " + COMPRESSION + " with the text output " +
+                        "format.");
+            }
+            pairDelimiter = toDelimiter(TEXT_PAIR_DELIMITER,
+                    optionHolder.validateAndGetStaticValue(TEXT_PAIR_DELIMITER, ";"));
+            keyValueDelimiter = toDelimiter(TEXT_KEY_VALUE_DELIMITER,
+                    optionHolder.validateAndGetStaticValue(TEXT_KEY_VALUE_DELIMITER, "="));
+            textKeys = new String[keys.length];
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < keys.length; i++) {
+                builder.setLength(0);
+                appendEscaped(builder, keys[i]);
+                textKeys[i] = builder.toString();
+            }
+        }
+        String dictionaryKeys = optionHolder.validateAndGetStaticValue(DICTIONARY_KEYS, null);
+        if (dictionaryKeys != null) {
+            if (outputFormat != OutputFormat.BINARY && outputFormat != OutputFormat.SPARSE &&
+                    outputFormat != OutputFormat.SCHEMA) {
+                throw new SiddhiAppCreationException("The " + DICTIONARY_KEYS + " of the keyvalue sink mapper of " +
+                        "stream '" + streamDefinition.getId() + "' can only be used with the binary, sparse and " +
+                        "schema output formats.");
+            }
+            int maxSize = Integer.parseInt(optionHolder.validateAndGetStaticValue(DICTIONARY_MAX_SIZE, "10000"));
+            int syncInterval = Integer.parseInt(
+                    optionHolder.validateAndGetStaticValue(DICTIONARY_SYNC_INTERVAL, "100"));
+            if (maxSize <= 0 || maxSize > StringDictionary.MAX_SIZE_LIMIT || syncInterval <= 0) {
+                throw new SiddhiAppCreationException("The " + DICTIONARY_MAX_SIZE + " of the keyvalue sink mapper " +
+                        "of stream '" + streamDefinition.getId() + "' should be between 1 and " +
+                        StringDictionary.MAX_SIZE_LIMIT + ", and the " + DICTIONARY_SYNC_INTERVAL + " should be " +
+                        "positive, but found " + maxSize + " and " + syncInterval + ".");
+            }
+            dictionary = new StringDictionary(maxSize, syncInterval);
+            keyDictionaries = new StringDictionary[keys.length];
+            for (String dictionaryKey : dictionaryKeys.split(",")) {
+                int keyPosition = Arrays.asList(keys).indexOf(dictionaryKey.trim());
+                if (keyPosition < 0) {
+                    throw new SiddhiAppCreationException("The " + DICTIONARY_KEYS + " '" + dictionaryKey.trim() +
+                            "' of the keyvalue sink mapper of stream '" + streamDefinition.getId() + "' is not " +
+                            "one of the published keys " + Arrays.toString(keys) + ".");
+                }
+                keyDictionaries[keyPosition] = dictionary;
+            }
+        }
+        String conflationKey = optionHolder.validateAndGetStaticValue(CONFLATION_KEY, null);
+        if (conflationKey != null) {
+            int keyPosition = Arrays.asList(attributeNameArray).indexOf(conflationKey);
+            if (keyPosition < 0) {
+                throw new SiddhiAppCreationException("The " + CONFLATION_KEY + " '" + conflationKey + "' of the " +
+                        "keyvalue sink mapper is not an attribute of stream '" + streamDefinition.getId() + "'.");
+            }
+            int maxKeys = (int) toPositive(CONFLATION_MAX_KEYS,
+                    optionHolder.validateAndGetStaticValue(CONFLATION_MAX_KEYS, "10000"), Integer.MAX_VALUE,
+                    streamDefinition.getId());
+            long interval = toPositive(CONFLATION_INTERVAL,
+                    optionHolder.validateAndGetStaticValue(CONFLATION_INTERVAL, "100"), Long.MAX_VALUE,
+                    streamDefinition.getId());
+            conflator = new Conflator(streamDefinition.getId(), keyPosition, maxKeys, interval,
+                    this::publishConflated, siddhiAppContext);
+            siddhiAppContext.addEternalReferencedHolder(conflator);
+        }
+    }
+
+    private static long toPositive(String option, String value, long max, String streamId) {
+        try {
+            long result = Long.parseLong(value.trim());
+            if (result > 0 && result <= max) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, along with the values that are out of range
+        }
+        throw new SiddhiAppCreationException("The " + option + " of the keyvalue sink mapper of stream '" +
+                streamId + "' should be a positive number not greater than " + max + ", but found '" + value + "'.");
+    }
+
+    private static char toDelimiter(String option, String value) {
+        if (value.length() != 1 || value.charAt(0) == ESCAPE || value.charAt(0) > 0x7f) {
+            throw new SiddhiAppCreationException("The " + option + " of the keyvalue sink mapper should be a " +
+                    "single ASCII character other than a backslash, but found '" + value + "'.");
+        }
+        return value.charAt(0);
     }
 
     @Override
     public Class[] getOutputEventClasses() {
-        return new Class[]{Map.class};
+        return new Class[]{Map.class, List.class, byte[].class, String.class};
     }
 
     @Override
     public void mapAndSend(Event[] events, OptionHolder optionHolder, Map<String,
             TemplateBuilder> payloadTemplateBuilderMap, SinkListener sinkListener) {
-        for (Event event : events) {
-            mapAndSend(event, optionHolder, payloadTemplateBuilderMap, sinkListener);
+        if (conflator != null) {
+            for (Event event : events) {
+                conflator.add(event, sinkListener);
+            }
+            return;
         }
+        publishEvents(events, sinkListener);
     }
 
     @Override
     public void mapAndSend(Event event, OptionHolder optionHolder,
                            Map<String, TemplateBuilder> payloadTemplateBuilderMap, SinkListener sinkListener) {
+        if (conflator != null) {
+            conflator.add(event, sinkListener);
+            return;
+        }
+        publishEvent(event, sinkListener);
+    }
 
-        Map<String, Object> result = new LinkedHashMap<>();
-        
-        if (payloadTemplateBuilderMap != null) {
+    private void publishEvents(Event[] events, SinkListener sinkListener) {
+        if (outputFormat == OutputFormat.BINARY || outputFormat == OutputFormat.SPARSE ||
+                outputFormat == OutputFormat.SCHEMA) {
+            publishFrame(events, sinkListener);
+            return;
+        } else if (outputFormat == OutputFormat.COLUMNAR) {
+            publishColumnarFrame(events, sinkListener);
+            return;
+        }
+        for (Event event : events) {
+            publishEvent(event, sinkListener);
+        }
+    }
+
+    private void publishEvent(Event event, SinkListener sinkListener) {
+        if (outputFormat == OutputFormat.BINARY || outputFormat == OutputFormat.SPARSE ||
+                outputFormat == OutputFormat.SCHEMA) {
+            publishFrame(new Event[]{event}, sinkListener);
+            return;
+        } else if (outputFormat == OutputFormat.COLUMNAR) {
+            publishColumnarFrame(new Event[]{event}, sinkListener);
+            return;
+        } else if (outputFormat == OutputFormat.TEXT) {
+            sinkListener.publish(toText(event));
+            return;
+        }
+
+        Map<String, Object> result = toMap(event);
+        if (compression == CompressionUtil.Compression.NONE) {
+            sinkListener.publish(result);
+        } else {
+            byte[] compressed = compress(result);
+            if (compressed != null) {
+                sinkListener.publish(compressed);
+            }
+        }
+    }
 
-            for (Map.Entry<String, TemplateBuilder> entry : payloadTemplateBuilderMap.entrySet()) {
-                result.put(entry.getKey(), entry.getValue().build(event));
+    /**
+     * Method to publish the events retained by the conflator. Maps that are not compressed are published together
+     * as a single list, and the other output formats are published as they are without conflation.
+     *
+     * @param events       events to publish.
+     * @param sinkListener listener to publish the events to.
+     */
+    private void publishConflated(Event[] events, SinkListener sinkListener) {
+        if (outputFormat != OutputFormat.MAP || compression != CompressionUtil.Compression.NONE) {
+            publishEvents(events, sinkListener);
+            return;
+        }
+        List<Map<String, Object>> batch = new ArrayList<>(events.length);
+        for (Event event : events) {
+            batch.add(toMap(event));
+        }
+        sinkListener.publish(batch);
+    }
+
+    private Map<String, Object> toMap(Event event) {
+        Map<String, Object> result;
+        if (deltaCache != null) {
+            result = toDeltaMap(event);
+        } else if (nestedMapBuilder != null) {
+            Object[] values = new Object[payloadTemplateBuilders.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = payloadTemplateBuilders[i].build(event);
+            }
+            result = nestedMapBuilder.build(values, omitNulls);
+        } else if (payloadTemplateBuilders != null) {
+            result = new LinkedHashMap<>();
+            for (int i = 0; i < payloadTemplateBuilders.length; i++) {
+                Object value = payloadTemplateBuilders[i].build(event);
+                if (value != null || !omitNulls) {
+                    result.put(outputKeys[i], value);
+                }
             }
         } else {
+            result = new LinkedHashMap<>();
             Object data[] = event.getData();
             for (int i = 0; i < data.length; i++) {
-                String attributeName = attributeNameArray[i];
-                result.put(attributeName, data[i]);
+                if (data[i] != null || !omitNulls) {
+                    result.put(attributeNameArray[i], data[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method to write the events as the records of a single binary, sparse or schema frame and to publish the frame.
+     *
+     * @param events       events to publish.
+     * @param sinkListener listener to publish the frame to.
+     */
+    private void publishFrame(Event[] events, SinkListener sinkListener) {
+        if (dictionary == null) {
+            writeAndPublishFrame(events, sinkListener);
+            return;
+        }
+        // Frames refer to the dictionary entries sent with earlier frames, hence they are published in order
+        synchronized (dictionary) {
+            writeAndPublishFrame(events, sinkListener);
+        }
+    }
+
+    private void writeAndPublishFrame(Event[] events, SinkListener sinkListener) {
+        BinaryFrameWriter writer = FRAME_WRITER.get();
+        boolean sparse = outputFormat == OutputFormat.SPARSE || outputFormat == OutputFormat.SCHEMA;
+        if (outputFormat == OutputFormat.SCHEMA) {
+            writer.startSchemaFrame(encodedKeys, schemaFingerprint,
+                    schemaFrameCount.getAndIncrement() % schemaSyncInterval == 0);
+        } else if (sparse) {
+            writer.startSparseFrame(encodedKeys);
+        } else {
+            writer.startFrame();
+        }
+        Object[] values = payloadTemplateBuilders != null ? new Object[payloadTemplateBuilders.length] : null;
+        for (Event event : events) {
+            Object[] data = event.getData();
+            if (payloadTemplateBuilders != null) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = payloadTemplateBuilders[i].build(event);
+                }
+                data = values;
+            }
+            try {
+                if (sparse) {
+                    writer.writeSparseRecord(data, keyDictionaries);
+                } else {
+                    writer.startRecord();
+                    for (int i = 0; i < data.length; i++) {
+                        if (data[i] != null || !omitNulls) {
+                            writer.writeField(encodedKeys[i], data[i],
+                                    keyDictionaries == null ? null : keyDictionaries[i]);
+                        }
+                    }
+                    writer.endRecord();
+                }
+            } catch (IOException e) {
+                if (!sparse) {
+                    writer.abortRecord();
+                }
+                log.error("Error is encountered when writing the event " + event + " as a binary key-value " +
+                        "record. " + e.getMessage() + " Hence dropping the event.", e);
+            }
+        }
+        if (writer.getRecordCount() == 0) {
+            return;
+        }
+        if (dictionary == null) {
+            writer.endFrame();
+        } else {
+            writer.endFrame(dictionary);
+        }
+        sinkListener.publish(CompressionUtil.compress(compression, writer.getBuffer(), 0, writer.size()));
+    }
+
+    /**
+     * Method to write the events as the rows of a single columnar frame and to publish the frame.
+     *
+     * @param events       events to publish.
+     * @param sinkListener listener to publish the frame to.
+     */
+    private void publishColumnarFrame(Event[] events, SinkListener sinkListener) {
+        Object[][] rows = new Object[events.length][];
+        for (int row = 0; row < events.length; row++) {
+            if (payloadTemplateBuilders != null) {
+                rows[row] = new Object[payloadTemplateBuilders.length];
+                for (int i = 0; i < payloadTemplateBuilders.length; i++) {
+                    rows[row][i] = payloadTemplateBuilders[i].build(events[row]);
+                }
+            } else {
+                rows[row] = events[row].getData();
+            }
+        }
+        ColumnarFrameWriter writer = COLUMNAR_FRAME_WRITER.get();
+        try {
+            writer.write(encodedKeys, rows, rows.length);
+        } catch (IOException e) {
+            log.error("Error is encountered when writing " + events.length + " events as a columnar key-value " +
+                    "frame. " + e.getMessage() + " Hence dropping the events.", e);
+            return;
+        }
+        sinkListener.publish(CompressionUtil.compress(compression, writer.getBuffer(), 0, writer.size()));
+    }
+
+    /**
+     * Method to build a map holding the delta key and the values that changed since the previous event with the same
+     * delta key. The first event of each key is mapped in full, as is the next event of every key once
+     * {@link #deltaSyncInterval} events were mapped since the last values were discarded.
+     *
+     * @param event event to map.
+     * @return the delta map.
+     */
+    private Map<String, Object> toDeltaMap(Event event) {
+        Object[] values;
+        if (payloadTemplateBuilders != null) {
+            values = new Object[payloadTemplateBuilders.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = payloadTemplateBuilders[i].build(event);
+            }
+        } else {
+            values = event.getData().clone();
+        }
+        if (deltaSyncInterval > 0 && deltaEventCount.incrementAndGet() % deltaSyncInterval == 0) {
+            deltaCache.clear();
+        }
+        Object key = values[deltaKeyIndex];
+        Object[] previous = key == null ? null : deltaCache.put(key, values);
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (previous == null || i == deltaKeyIndex || !Objects.equals(previous[i], values[i])) {
+                result.put(outputKeys[i], values[i]);
             }
         }
+        return result;
+    }
+
+    /**
+     * Method to render the event as text key value pairs into a reusable buffer.
+     *
+     * @param event event to render.
+     * @return the text message.
+     */
+    private String toText(Event event) {
+        StringBuilder builder = TEXT_BUFFER.get();
+        if (builder.capacity() > MAX_RETAINED_TEXT_BUFFER_SIZE) {
+            builder = new StringBuilder(256);
+            TEXT_BUFFER.set(builder);
+        }
+        builder.setLength(0);
+        Object[] data = event.getData();
+        boolean first = true;
+        for (int i = 0; i < textKeys.length; i++) {
+            Object value = payloadTemplateBuilders != null ? payloadTemplateBuilders[i].build(event) : data[i];
+            if (value == null) {
+                continue;
+            }
+            if (!first) {
+                builder.append(pairDelimiter);
+            }
+            first = false;
+            builder.append(textKeys[i]).append(keyValueDelimiter);
+            if (value instanceof Integer) {
+                builder.append(((Integer) value).intValue());
+            } else if (value instanceof Long) {
+                builder.append(((Long) value).longValue());
+            } else if (value instanceof Double) {
+                builder.append(((Double) value).doubleValue());
+            } else if (value instanceof Float) {
+                builder.append(((Float) value).floatValue());
+            } else if (value instanceof Boolean) {
+                builder.append(((Boolean) value).booleanValue());
+            } else {
+                appendEscaped(builder, value.toString());
+            }
+        }
+        return builder.toString();
+    }
+
+    private void appendEscaped(StringBuilder builder, String text) {
+        int last = text.length() - 1;
+        for (int i = 0; i <= last; i++) {
+            char c = text.charAt(i);
+            if (c == pairDelimiter || c == keyValueDelimiter || c == ESCAPE ||
+                    ((i == 0 || i == last) && Character.isWhitespace(c))) {
+                builder.append(ESCAPE);
+            }
+            builder.append(c);
+        }
+    }
 
-        sinkListener.publish(result);
+    /**
+     * Method to serialize the map and compress the serialized bytes.
+     *
+     * @param result map to serialize.
+     * @return the compressed bytes, or null if the map cannot be serialized.
+     */
+    private byte[] compress(Map<String, Object> result) {
+        ReusableByteArrayOutputStream byteArrayOutputStream = SERIALIZATION_BUFFER.get();
+        byteArrayOutputStream.reset();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(result);
+        } catch (IOException e) {
+            log.error("Error is encountered when serializing the key-value map " + result + ". " + e.getMessage() +
+                    " Hence dropping the event.", e);
+            return null;
+        }
+        return CompressionUtil.compress(compression, byteArrayOutputStream.getBuffer(), 0,
+                byteArrayOutputStream.size());
+    }
+
+    /**
+     * Formats in which events can be published.
+     */
+    private enum OutputFormat {
+        MAP, BINARY, TEXT, SPARSE, COLUMNAR, SCHEMA
+    }
+
+    /**
+     * Byte array output stream that exposes its buffer, so that it can be reused without copying.
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        private byte[] getBuffer() {
+            return buf;
+        }
     }
 }
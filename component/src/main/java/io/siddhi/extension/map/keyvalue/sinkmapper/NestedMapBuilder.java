@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sinkmapper;
+
+import io.siddhi.core.exception.SiddhiAppCreationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds nested maps from dotted keys such as `order.px`. The shape of the tree is computed once when the mapper is
+ * initialised, so that building a map for an event only allocates its inner maps, each sized for the number of
+ * entries it receives. Inner maps are created when their first value is placed.
+ */
+class NestedMapBuilder {
+
+    private static final char SEPARATOR = '.';
+    private static final int ROOT = 0;
+
+    private final String[] leafKeys;
+    private final int[] leafContainers;
+    private final String[] containerKeys;
+    private final int[] containerParents;
+    private final int[] containerSizes;
+
+    /**
+     * @param keys the dotted keys, in the order their values are given to {@link #build(Object[], boolean)}.
+     */
+    NestedMapBuilder(String[] keys) {
+        List<String> containerKeyList = new ArrayList<>();
+        List<Integer> containerParentList = new ArrayList<>();
+        List<Integer> containerSizeList = new ArrayList<>();
+        containerKeyList.add(null);
+        containerParentList.add(-1);
+        containerSizeList.add(0);
+        leafKeys = new String[keys.length];
+        leafContainers = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            int container = ROOT;
+            int start = 0;
+            int end;
+            while ((end = key.indexOf(SEPARATOR, start)) >= 0) {
+                String segment = key.substring(start, end);
+                int child = -1;
+                for (int c = 1; c < containerKeyList.size(); c++) {
+                    if (containerParentList.get(c) == container && containerKeyList.get(c).equals(segment)) {
+                        child = c;
+                        break;
+                    }
+                }
+                if (child < 0) {
+                    checkUnique(keys, i, key.substring(0, end));
+                    containerKeyList.add(segment);
+                    containerParentList.add(container);
+                    containerSizeList.add(0);
+                    containerSizeList.set(container, containerSizeList.get(container) + 1);
+                    child = containerKeyList.size() - 1;
+                }
+                container = child;
+                start = end + 1;
+            }
+            checkUnique(keys, i, key);
+            leafKeys[i] = key.substring(start);
+            leafContainers[i] = container;
+            containerSizeList.set(container, containerSizeList.get(container) + 1);
+        }
+        containerKeys = containerKeyList.toArray(new String[0]);
+        containerParents = new int[containerKeys.length];
+        containerSizes = new int[containerKeys.length];
+        for (int i = 0; i < containerKeys.length; i++) {
+            containerParents[i] = containerParentList.get(i);
+            containerSizes[i] = containerSizeList.get(i);
+        }
+    }
+
+    /**
+     * @param keys the keys of the payload.
+     * @return true if any of the keys is a dotted path.
+     */
+    static boolean hasPaths(String[] keys) {
+        for (String key : keys) {
+            if (key != null && key.indexOf(SEPARATOR) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the nested map of an event.
+     *
+     * @param values    the value of each key.
+     * @param omitNulls whether keys with null values are left out, in which case inner maps that would only hold
+     *                  null values are not created.
+     * @return the nested map.
+     */
+    Map<String, Object> build(Object[] values, boolean omitNulls) {
+        Map<String, Object>[] containers = new Map[containerKeys.length];
+        for (int i = 0; i < leafKeys.length; i++) {
+            if (values[i] != null || !omitNulls) {
+                container(containers, leafContainers[i]).put(leafKeys[i], values[i]);
+            }
+        }
+        return container(containers, ROOT);
+    }
+
+    private Map<String, Object> container(Map<String, Object>[] containers, int index) {
+        Map<String, Object> container = containers[index];
+        if (container == null) {
+            container = new LinkedHashMap<>(capacity(containerSizes[index]));
+            containers[index] = container;
+            if (index != ROOT) {
+                container(containers, containerParents[index]).put(containerKeys[index], container);
+            }
+        }
+        return container;
+    }
+
+    private static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    /**
+     * Rejects a key that is both a value and the parent of other values, such as `order` and `order.px`.
+     */
+    private static void checkUnique(String[] keys, int index, String prefix) {
+        for (int i = 0; i < keys.length; i++) {
+            if (i == index) {
+                continue;
+            }
+            if (keys[i].equals(prefix) && prefix.length() < keys[index].length() ||
+                    keys[i].startsWith(prefix + SEPARATOR) && prefix.equals(keys[index])) {
+                throw new SiddhiAppCreationException("The payload key '" + prefix + "' of the keyvalue sink " +
+                        "mapper cannot hold both a value and nested keys.");
+            }
+        }
+    }
+}
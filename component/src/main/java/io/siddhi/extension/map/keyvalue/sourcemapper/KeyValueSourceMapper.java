@@ -25,28 +25,42 @@ import io.siddhi.annotation.util.DataType;
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.event.Event;
 import io.siddhi.core.exception.MappingFailedException;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.stream.input.source.AttributeMapping;
 import io.siddhi.core.stream.input.source.InputEventHandler;
 import io.siddhi.core.stream.input.source.SourceMapper;
 import io.siddhi.core.util.config.ConfigReader;
 import io.siddhi.core.util.error.handler.model.ErroneousEvent;
 import io.siddhi.core.util.transport.OptionHolder;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameReader;
+import io.siddhi.extension.map.keyvalue.util.ClassAllowList;
+import io.siddhi.extension.map.keyvalue.util.ColumnarFrameReader;
+import io.siddhi.extension.map.keyvalue.util.CompressionUtil;
+import io.siddhi.extension.map.keyvalue.util.KeyIndex;
+import io.siddhi.extension.map.keyvalue.util.KeyValueRecord;
+import io.siddhi.extension.map.keyvalue.util.LastValueCache;
+import io.siddhi.extension.map.keyvalue.util.StringDictionary;
 import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.definition.StreamDefinition;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DataFormatException;
 
 /**
  * This mapper converts Key Value pair set input to {@link io.siddhi.core.event.ComplexEventChunk}.
@@ -56,7 +70,29 @@ import java.util.Map;
         namespace = "sourceMapper",
         description = "`Key-Value Map to Event` input mapper extension allows transports that accept events as key " +
                 "value maps to convert those events to Siddhi events. You can either receive pre-defined keys where " +
-                "conversion takes place without extra configurations, or use custom keys to map from the message.",
+                "conversion takes place without extra configurations, or use custom keys to map from the message. " +
+                "Maps can also be received as Java serialized byte arrays, or as binary frames carrying any number " +
+                "of key-value records, such as the ones published by the `keyvalue` sink mapper with " +
+                "`output.format='binary'`, `output.format='sparse'`, `output.format='schema'` or " +
+                "`output.format='columnar'`, where a columnar frame is exploded back into one event per row. String " +
+                "values that the sink mapper dictionary encodes with `dictionary.keys` are resolved against a cache " +
+                "of the received dictionary entries. Likewise, a plan is cached per schema of the received schema " +
+                "frames, which maps the keys of the sender to the mapped attributes, so that records are decoded by " +
+                "position even when the sender publishes keys that are added or removed relative to the mapping. " +
+                "Byte arrays can optionally be compressed with `deflate` or `gzip`, where the format and the " +
+                "compression are detected from the leading bytes of the payload. Binary frames can also be received " +
+                "as heap or direct `ByteBuffer`s, which are decoded in place without changing their position. With " +
+                "`input.format='text'`, messages can instead be received as text such as " +
+                "`symbol=WSO2;price=55.6;volume=100`, given as a `String`, or as a UTF-8 encoded byte array or " +
+                "`ByteBuffer`. Custom mappings can refer to values of nested maps with dotted key paths such as " +
+                "`order.px`, where a path that does not resolve through nested maps is looked up as a literal key. " +
+                "Transports can also deliver a batch of messages at once as a `List` or an array whose elements are " +
+                "each one of the above messages, which are handed to the stream together in their order. Producers " +
+                "in the same JVM can pass a `KeyValueRecord`, such as a reused `ArrayKeyValueRecord`, instead of a " +
+                "map, whose primitive values are read without boxing them before they are placed in the event. " +
+                "Producers that know the stream layout can instead pass each message as an `Object[]` or a `List` " +
+                "of values, which are mapped by their position as given by `positional.keys`, or by the last " +
+                "`String[]` key header received by the mapper, or otherwise by the order of the stream attributes.",
         parameters = {
                 @Parameter(name = "fail.on.missing.attribute",
                         description = " If this parameter is set to `true`, if an event arrives without a matching " +
@@ -74,7 +110,210 @@ import java.util.Map;
                                 "provided datatype before it fails ",
                         defaultValue = "false",
                         optional = true,
-                        type = {DataType.BOOL})
+                        type = {DataType.BOOL}),
+                @Parameter(name = "input.format",
+                        description = " Format of the received messages. With `map` messages are key-value maps, " +
+                                "Java serialized maps or binary key-value frames. With `text` messages are text " +
+                                "key-value pairs, which are parsed in a single scan directly into the types of the " +
+                                "mapped attributes. A backslash escapes the character that follows it.",
+                        defaultValue = "map",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "text.pair.delimiter",
+                        description = " ASCII character separating the key-value pairs of text messages.",
+                        defaultValue = ";",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "text.key.value.delimiter",
+                        description = " ASCII character separating a key from its value in text messages.",
+                        defaultValue = "=",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "delta.key",
+                        description = " Key that identifies the entity a message belongs to, for messages published " +
+                                "by the `keyvalue` sink mapper with the same `delta.key`. Keys that are absent from " +
+                                "a key-value map keep the value last received for the same entity. The last values " +
+                                "are held in memory only, hence after a restart, or once an entity is evicted from " +
+                                "the cache, messages of the entity that lack any of the mapped keys are dropped " +
+                                "until its next full event. Use `delta.sync.interval` of the sink mapper to have " +
+                                "full events published periodically. Only applies to key-value maps with flat keys.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "delta.cache.size",
+                        description = " Maximum number of entities whose last received values are retained to " +
+                                "rebuild full events from deltas. It should not be less than the `delta.cache.size` " +
+                                "of the publishing sink mapper.",
+                        defaultValue = "10000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "attribute.default",
+                        description = " Default value of an attribute, given as `<attribute>.default`, such as " +
+                                "`volume.default='0'`. When a received message has no value for the attribute, the " +
+                                "default is assigned instead of null, and the message is not dropped even when " +
+                                "`fail.on.missing.attribute` is `true`. Defaults are parsed to the type of the " +
+                                "attribute when the Siddhi app is created, and cannot be given for attributes of " +
+                                "type `object`.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "attribute.format",
+                        description = " Format of the date time text received for a `long` attribute, given as " +
+                                "`<attribute>.format`, such as `ts.format='yyyy-MM-dd HH:mm:ss.SSS'`, which is " +
+                                "converted to epoch milliseconds. The format is either `ISO_8601`, which accepts " +
+                                "values such as `2026-10-19T10:15:30.123+05:30` and is parsed without allocating, " +
+                                "or a `java.time.format.DateTimeFormatter` pattern, which is compiled when the " +
+                                "Siddhi app is created. Date times without an offset are taken to be in UTC. " +
+                                "Regardless of this parameter, `long` attributes also accept `java.util.Date`, " +
+                                "`Instant`, `LocalDateTime`, `OffsetDateTime` and `ZonedDateTime` values.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "attribute.aliases",
+                        description = " Comma separated alternative keys of an attribute, given as " +
+                                "`<attribute>.aliases`, such as `symbol.aliases='SYM, ticker'`. A message that has " +
+                                "no value for the mapped key of the attribute is matched against its aliases.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "case.insensitive.keys",
+                        description = " If this parameter is set to `true`, keys that do not match exactly are " +
+                                "matched ignoring their case, so that `Symbol` and `SYMBOL` are mapped like " +
+                                "`symbol`. Keys are matched exactly first, and only the keys that are not found " +
+                                "are compared ignoring case, which for maps takes a single pass over their entries.",
+                        defaultValue = "false",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "count.unknown.keys",
+                        description = " If this parameter is set to `true`, keys of received messages that are " +
+                                "neither mapped, nor aliases, nor the `delta.key` are counted, and reported with " +
+                                "the `keyvalue.unknown.keys` metric and a warning logged at most once a minute. " +
+                                "Each key is checked once against a precomputed index of the expected keys. The " +
+                                "keys of key-value maps and text messages are checked, as well as the key headers " +
+                                "of sparse and schema frames.",
+                        defaultValue = "false",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "fail.on.unknown.key",
+                        description = " If this parameter is set to `true`, unknown keys are counted as with " +
+                                "`count.unknown.keys`, and messages that have unknown keys are dropped.",
+                        defaultValue = "false",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "deserialization.allowed.classes",
+                        description = " Comma separated classes, in addition to the JDK map, collection, boxed " +
+                                "primitive, big number and date classes, that Java serialized byte arrays and the " +
+                                "object values of binary frames are allowed to instantiate. Entries such as " +
+                                "`com.example.*` allow all classes of a package and its sub packages, and `*` allows " +
+                                "all classes. Payloads referring to any other class are dropped before the class is " +
+                                "instantiated.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "deserialization.max.array.length",
+                        description = " Maximum length of the arrays of Java serialized byte arrays and of the " +
+                                "object values of binary frames. Payloads with longer arrays are dropped before the " +
+                                "arrays are allocated.",
+                        defaultValue = "1000000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "deserialization.max.depth",
+                        description = " Maximum depth of the objects nested in Java serialized byte arrays and in " +
+                                "the object values of binary frames. Payloads nested deeper are dropped.",
+                        defaultValue = "100",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "deserialization.max.references",
+                        description = " Maximum number of object references in Java serialized byte arrays and in " +
+                                "the object values of binary frames. Payloads with more references are dropped.",
+                        defaultValue = "1000000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "dictionary.max.size",
+                        description = " Maximum number of entries retained per dictionary of the received binary " +
+                                "frames, for up to 16 dictionaries. Frames carrying entries beyond it are dropped " +
+                                "as malformed. It should not be less than the `dictionary.max.size` of the " +
+                                "publishing sink mapper, and at most 1048576.",
+                        defaultValue = "10000",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "decompression.max.size",
+                        description = " Maximum number of bytes a deflate or gzip compressed byte array message is " +
+                                "allowed to decompress into. Messages that decompress into more bytes are logged " +
+                                "and dropped.",
+                        defaultValue = "16777216",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "decoding.threads",
+                        description = " Number of messages that are decoded, or wait for earlier messages to be " +
+                                "handed off, at a time. Byte array messages are decoded in parallel, off the " +
+                                "transport thread that received them, while other messages, which the transport may " +
+                                "reuse, are decoded on the transport thread. Events of all messages are still " +
+                                "handed off to the stream in the order the messages were received, and the " +
+                                "transport thread waits while this number of messages are in flight. Messages are " +
+                                "decoded on virtual threads when the JVM supports them, and on a pool of this many " +
+                                "threads otherwise, which stop with the Siddhi app. The events are handed off with " +
+                                "the transport properties of their message, and messages that cannot be mapped are " +
+                                "reported when they are handed off, as those decoded on the transport thread are. " +
+                                "`0` decodes messages on the transport thread.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "positional.keys",
+                        description = " Comma separated keys of the values of `Object[]` and `List` messages, " +
+                                "in the order of the values. A `String[]` message received later replaces these " +
+                                "keys for the messages that follow it. Keys are matched against the mapping as the " +
+                                "keys of a map are, and values beyond the keys are treated as unknown keys. When " +
+                                "no keys are given, the values are in the order of the attributes of the stream.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "batch.messages",
+                        description = " If this parameter is set to `true`, an `Object[]` or a `List` message " +
+                                "whose elements are all messages on their own, that is maps, records, byte arrays, " +
+                                "`ByteBuffer`s, `Object[]`s or `List`s, or strings with `input.format='text'`, is " +
+                                "mapped as a batch of those messages, and any other `Object[]` or `List` message " +
+                                "is mapped as a positional row. Set it to `false` when all the values of a " +
+                                "positional row may be such objects, so that every `Object[]` and `List` message is " +
+                                "mapped as a positional row.",
+                        defaultValue = "true",
+                        optional = true,
+                        type = {DataType.BOOL}),
+                @Parameter(name = "shed.max.in.flight",
+                        description = " Enables load shedding when the number of messages concurrently being " +
+                                "handed off to the stream by this mapper exceeds the given limit. While overloaded, " +
+                                "low priority messages are dropped before they are converted to Siddhi events. " +
+                                "`0` disables this load signal.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.INT}),
+                @Parameter(name = "shed.latency.threshold",
+                        description = " Enables load shedding when the average time, in milliseconds, taken to " +
+                                "hand off a converted event to the stream exceeds the given threshold. While " +
+                                "overloaded, low priority messages are dropped before they are converted to Siddhi " +
+                                "events. `0` disables this load signal.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.LONG}),
+                @Parameter(name = "shed.priority.key",
+                        description = " Key of the message that carries its numeric priority. When it is not " +
+                                "given, or when a message does not have a numeric value for it, the message is " +
+                                "considered low priority.",
+                        defaultValue = "<empty>",
+                        optional = true,
+                        type = {DataType.STRING}),
+                @Parameter(name = "shed.min.priority",
+                        description = " Messages with a priority lower than this value are dropped while the " +
+                                "mapper is overloaded.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.DOUBLE}),
+                @Parameter(name = "shed.sampling.rate",
+                        description = " Fraction, between `0` and `1`, of the low priority messages that are still " +
+                                "processed while the mapper is overloaded.",
+                        defaultValue = "0",
+                        optional = true,
+                        type = {DataType.DOUBLE})
         },
         examples = {
                 @Example(
@@ -110,6 +349,71 @@ import java.util.Map;
                                 + "s: 'WSO2' \n"
                                 + "p: 55.6 \n"
                                 + "v: 100 \n"
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', shed.max.in.flight='8', shed.latency.threshold='50', " +
+                                "shed.priority.key='priority', shed.min.priority='5', shed.sampling.rate='0.1'))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query performs a default key value input mapping with load shedding. " +
+                                "When more than 8 messages are concurrently handed off, or when the hand off takes " +
+                                "more than 50 milliseconds on average, messages whose `priority` value is less " +
+                                "than 5 are dropped, except for a 10% sample of them."
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', input.format='text', text.pair.delimiter=',', " +
+                                "@attributes(symbol = 's', price = 'p', volume = 'v')))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query performs a custom key value input mapping of text messages " +
+                                "similar to the following: \n"
+                                + "s=WSO2,p=55.6,v=100"
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', " +
+                                "@attributes(symbol = 'order.symbol', price = 'order.px', volume = 'order.qty')))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query maps the values of a nested map, where the expected input is a " +
+                                "map similar to the following: \n"
+                                + "order: {symbol: 'WSO2', px: 55.6f, qty: 100}"
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', volume.default='0', " +
+                                "@attributes(symbol = 's', price = 'p', volume = 'v')))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query performs a custom key value input mapping, where messages " +
+                                "without a `v` key are mapped with a volume of `0L` instead of null."
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', symbol.aliases='SYM, ticker', case.insensitive.keys='true'))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query performs a default key value input mapping, where the symbol " +
+                                "is also read from the `SYM` or `ticker` keys, and keys such as `Price` and " +
+                                "`VOLUME` are matched ignoring their case."
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', fail.on.unknown.key='true'))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query performs a default key value input mapping, where messages " +
+                                "that have keys other than `symbol`, `price` and `volume` are counted and dropped."
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', positional.keys='volume, symbol, price'))" +
+                                "define stream FooStream (symbol string, price float, volume long); ",
+                        description = "This query maps messages such as `new Object[]{100L, \"WSO2\", 55.6f}` " +
+                                "by the position of their values, where the first value is the volume."
+                ),
+                @Example(
+                        syntax = "@source(type='inMemory', topic='stock', " +
+                                "@map(type='keyvalue', ts.format='ISO_8601'))" +
+                                "define stream FooStream (symbol string, price float, ts long); ",
+                        description = "This query performs a default key value input mapping, where a `ts` value " +
+                                "such as `2026-10-19T10:15:30Z` is converted to epoch milliseconds."
                 )
 
         }
@@ -118,6 +422,32 @@ public class KeyValueSourceMapper extends SourceMapper {
 
     private static final String FAIL_ON_MISSING_ATTRIBUTE_IDENTIFIER = "fail.on.missing.attribute";
     private static final String IMPLICIT_CAST_ENABLE = "implicit.cast.enable";
+    private static final String SHED_MAX_IN_FLIGHT = "shed.max.in.flight";
+    private static final String SHED_LATENCY_THRESHOLD = "shed.latency.threshold";
+    private static final String SHED_PRIORITY_KEY = "shed.priority.key";
+    private static final String SHED_MIN_PRIORITY = "shed.min.priority";
+    private static final String SHED_SAMPLING_RATE = "shed.sampling.rate";
+    private static final String INPUT_FORMAT = "input.format";
+    private static final String TEXT_PAIR_DELIMITER = "text.pair.delimiter";
+    private static final String TEXT_KEY_VALUE_DELIMITER = "text.key.value.delimiter";
+    private static final String DELTA_KEY = "delta.key";
+    private static final String DEFAULT_SUFFIX = ".default";
+    private static final String ALIASES_SUFFIX = ".aliases";
+    private static final String FORMAT_SUFFIX = ".format";
+    private static final String CASE_INSENSITIVE_KEYS = "case.insensitive.keys";
+    private static final String COUNT_UNKNOWN_KEYS = "count.unknown.keys";
+    private static final String FAIL_ON_UNKNOWN_KEY = "fail.on.unknown.key";
+    private static final String DELTA_CACHE_SIZE = "delta.cache.size";
+    private static final String DECODING_THREADS = "decoding.threads";
+    private static final String DECOMPRESSION_MAX_SIZE = "decompression.max.size";
+    private static final String DESERIALIZATION_ALLOWED_CLASSES = "deserialization.allowed.classes";
+    private static final String DESERIALIZATION_MAX_ARRAY_LENGTH = "deserialization.max.array.length";
+    private static final String DESERIALIZATION_MAX_DEPTH = "deserialization.max.depth";
+    private static final String DESERIALIZATION_MAX_REFERENCES = "deserialization.max.references";
+    private static final String DICTIONARY_MAX_SIZE = "dictionary.max.size";
+    private static final String POSITIONAL_KEYS = "positional.keys";
+    private static final String BATCH_MESSAGES = "batch.messages";
+    private static final Event[] NO_EVENTS = new Event[0];
     private static final Logger log = LogManager.getLogger(KeyValueSourceMapper.class);
 
     private StreamDefinition streamDefinition;
@@ -127,6 +457,32 @@ public class KeyValueSourceMapper extends SourceMapper {
     private boolean failOnMissingAttribute = true;
     private int attributesSize;
     private boolean implicitCastEnable = false;
+    private LoadShedder loadShedder;
+    private String shedPriorityKey;
+    private int shedPriorityIndex = -1;
+    private AttributeMapping[] attributeMappings;
+    private Attribute.Type[] attributeTypes;
+    private Object[] defaultValues;
+    private TimestampParser[] timestampParsers;
+    private int[] valueIndexes;
+    private int keyIndexSize;
+    private BinaryFrameReader binaryFrameReader;
+    private ColumnarFrameReader columnarFrameReader;
+    private ClassAllowList classAllowList;
+    private int decompressionMaxSize;
+    private TextKeyValueParser textParser;
+    private NestedKeyResolver nestedKeyResolver;
+    private String[] uniqueKeys;
+    private KeyIndex keyIndex;
+    private boolean matchKeys;
+    private String deltaKey;
+    private LastValueCache deltaCache;
+    private OrderedDecoder orderedDecoder;
+    private TransportContext transportContext;
+    private UnknownKeyTracker unknownKeyTracker;
+    private boolean failOnUnknownKey = false;
+    private boolean batchMessages = true;
+    private volatile PositionalHeader positionalHeader;
 
     @Override
     public void init(StreamDefinition streamDefinition, OptionHolder optionHolder,
@@ -141,6 +497,16 @@ public class KeyValueSourceMapper extends SourceMapper {
                 validateAndGetStaticValue(FAIL_ON_MISSING_ATTRIBUTE_IDENTIFIER, "true"));
         this.implicitCastEnable = Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(IMPLICIT_CAST_ENABLE,
                 "false"));
+        int maxInFlight = Integer.parseInt(optionHolder.validateAndGetStaticValue(SHED_MAX_IN_FLIGHT, "0"));
+        long latencyThreshold = Long.parseLong(optionHolder.validateAndGetStaticValue(SHED_LATENCY_THRESHOLD,
+                "0"));
+        if (maxInFlight > 0 || latencyThreshold > 0) {
+            this.shedPriorityKey = optionHolder.validateAndGetStaticValue(SHED_PRIORITY_KEY, null);
+            this.loadShedder = new LoadShedder(streamDefinition.getId(), shedPriorityKey != null,
+                    Double.parseDouble(optionHolder.validateAndGetStaticValue(SHED_MIN_PRIORITY, "0")),
+                    Double.parseDouble(optionHolder.validateAndGetStaticValue(SHED_SAMPLING_RATE, "0")),
+                    maxInFlight, latencyThreshold, siddhiAppContext);
+        }
 
         if (attributeMappingList != null && attributeMappingList.size() > 0) {
             customMapping = true;
@@ -152,247 +518,1218 @@ public class KeyValueSourceMapper extends SourceMapper {
                 this.attributeMappingList.add(new AttributeMapping(name, i, name, type));
             }
         }
+
+        this.attributeMappings = this.attributeMappingList.toArray(new AttributeMapping[0]);
+        this.attributeTypes = new Attribute.Type[attributeMappings.length];
+        this.valueIndexes = new int[attributeMappings.length];
+        List<String> keys = new ArrayList<>(attributeMappings.length + 1);
+        this.defaultValues = new Object[attributeMappings.length];
+        this.timestampParsers = new TimestampParser[attributeMappings.length];
+        Map<String, TimestampParser> compiledFormats = new HashMap<>();
+        for (int i = 0; i < attributeMappings.length; i++) {
+            attributeTypes[i] = streamAttributes.get(attributeMappings[i].getPosition()).getType();
+            valueIndexes[i] = indexOf(keys, attributeMappings[i].getMapping());
+            String defaultValue = optionHolder.validateAndGetStaticValue(
+                    attributeMappings[i].getName() + DEFAULT_SUFFIX, null);
+            if (defaultValue != null) {
+                defaultValues[i] = parseDefault(attributeMappings[i].getName(), attributeTypes[i], defaultValue);
+            }
+            String format = optionHolder.validateAndGetStaticValue(attributeMappings[i].getName() + FORMAT_SUFFIX,
+                    null);
+            if (format != null) {
+                timestampParsers[i] = compileFormat(attributeMappings[i].getName(), attributeTypes[i], format.trim(),
+                        compiledFormats);
+            }
+        }
+        if (shedPriorityKey != null) {
+            shedPriorityIndex = indexOf(keys, shedPriorityKey);
+        }
+        this.keyIndexSize = keys.size();
+        this.uniqueKeys = keys.toArray(new String[0]);
+        List<String> indexedKeys = new ArrayList<>(keys);
+        List<Integer> indexedValues = new ArrayList<>(keys.size());
+        for (int i = 0; i < keyIndexSize; i++) {
+            indexedValues.add(i);
+        }
+        for (int i = 0; i < attributeMappings.length; i++) {
+            String aliases = optionHolder.validateAndGetStaticValue(
+                    attributeMappings[i].getName() + ALIASES_SUFFIX, null);
+            if (aliases == null) {
+                continue;
+            }
+            for (String alias : aliases.split(",")) {
+                alias = alias.trim();
+                int aliasPosition = indexedKeys.indexOf(alias);
+                if (aliasPosition >= 0 && indexedValues.get(aliasPosition) != valueIndexes[i]) {
+                    throw new SiddhiAppCreationException("The alias '" + alias + "' of attribute '" +
+                            attributeMappings[i].getName() + "' in the keyvalue source mapper of stream '" +
+                            streamDefinition.getId() + "' is already mapped to another attribute.");
+                } else if (aliasPosition < 0 && !alias.isEmpty()) {
+                    indexedKeys.add(alias);
+                    indexedValues.add(valueIndexes[i]);
+                }
+            }
+        }
+        boolean caseInsensitiveKeys = Boolean.parseBoolean(
+                optionHolder.validateAndGetStaticValue(CASE_INSENSITIVE_KEYS, "false"));
+        this.matchKeys = caseInsensitiveKeys || indexedKeys.size() > keyIndexSize;
+        int[] values = new int[indexedValues.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = indexedValues.get(i);
+        }
+        this.keyIndex = new KeyIndex(indexedKeys.toArray(new String[0]), values, caseInsensitiveKeys);
+        if (NestedKeyResolver.hasPaths(uniqueKeys)) {
+            this.nestedKeyResolver = new NestedKeyResolver(uniqueKeys);
+        }
+        int maxArrayLength = Integer.parseInt(optionHolder.validateAndGetStaticValue(
+                DESERIALIZATION_MAX_ARRAY_LENGTH, String.valueOf(ClassAllowList.DEFAULT_MAX_ARRAY_LENGTH)));
+        int maxDepth = Integer.parseInt(optionHolder.validateAndGetStaticValue(DESERIALIZATION_MAX_DEPTH,
+                String.valueOf(ClassAllowList.DEFAULT_MAX_DEPTH)));
+        int maxReferences = Integer.parseInt(optionHolder.validateAndGetStaticValue(DESERIALIZATION_MAX_REFERENCES,
+                String.valueOf(ClassAllowList.DEFAULT_MAX_REFERENCES)));
+        if (maxArrayLength < 0 || maxDepth <= 0 || maxReferences <= 0) {
+            throw new SiddhiAppCreationException("The " + DESERIALIZATION_MAX_ARRAY_LENGTH + " of the keyvalue " +
+                    "source mapper of stream '" + streamDefinition.getId() + "' cannot be negative, and the " +
+                    DESERIALIZATION_MAX_DEPTH + " and " + DESERIALIZATION_MAX_REFERENCES + " should be positive, " +
+                    "but found " + maxArrayLength + ", " + maxDepth + " and " + maxReferences + ".");
+        }
+        this.classAllowList = new ClassAllowList(
+                optionHolder.validateAndGetStaticValue(DESERIALIZATION_ALLOWED_CLASSES, "").split(","),
+                maxArrayLength, maxDepth, maxReferences);
+        int dictionaryMaxSize = toPositive(DICTIONARY_MAX_SIZE,
+                optionHolder.validateAndGetStaticValue(DICTIONARY_MAX_SIZE, "10000"), streamDefinition.getId());
+        if (dictionaryMaxSize > StringDictionary.MAX_SIZE_LIMIT) {
+            throw new SiddhiAppCreationException("The " + DICTIONARY_MAX_SIZE + " of the keyvalue source mapper of " +
+                    "stream '" + streamDefinition.getId() + "' should not be greater than " +
+                    StringDictionary.MAX_SIZE_LIMIT + ", but found " + dictionaryMaxSize + ".");
+        }
+        this.binaryFrameReader = new BinaryFrameReader(keyIndex, classAllowList, dictionaryMaxSize);
+        this.columnarFrameReader = new ColumnarFrameReader(keyIndex, classAllowList);
+
+        String inputFormat = optionHolder.validateAndGetStaticValue(INPUT_FORMAT, "map").trim();
+        if ("text".equalsIgnoreCase(inputFormat)) {
+            Attribute.Type[] valueTypes = new Attribute.Type[keyIndexSize];
+            for (int i = attributeMappings.length - 1; i >= 0; i--) {
+                valueTypes[valueIndexes[i]] = timestampParsers[i] == null ? attributeTypes[i] : null;
+            }
+            this.textParser = new TextKeyValueParser(keyIndex, valueTypes,
+                    toDelimiter(TEXT_PAIR_DELIMITER, optionHolder.validateAndGetStaticValue(TEXT_PAIR_DELIMITER, ";")),
+                    toDelimiter(TEXT_KEY_VALUE_DELIMITER,
+                            optionHolder.validateAndGetStaticValue(TEXT_KEY_VALUE_DELIMITER, "=")));
+        } else if (!"map".equalsIgnoreCase(inputFormat)) {
+            throw new SiddhiAppCreationException("Unsupported " + INPUT_FORMAT + " '" + inputFormat + "' in the " +
+                    "keyvalue source mapper of stream '" + streamDefinition.getId() + "', expected 'map' or 'text'.");
+        }
+
+        this.deltaKey = optionHolder.validateAndGetStaticValue(DELTA_KEY, null);
+        if (deltaKey != null) {
+            if (nestedKeyResolver != null) {
+                throw new SiddhiAppCreationException("The " + DELTA_KEY + " of the keyvalue source mapper of " +
+                        "stream '" + streamDefinition.getId() + "' cannot be used with dotted key paths.");
+            }
+            this.deltaCache = new LastValueCache(toPositive(DELTA_CACHE_SIZE,
+                    optionHolder.validateAndGetStaticValue(DELTA_CACHE_SIZE, "10000"), streamDefinition.getId()));
+        }
+
+        this.failOnUnknownKey = Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(FAIL_ON_UNKNOWN_KEY,
+                "false"));
+        if (failOnUnknownKey || Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(COUNT_UNKNOWN_KEYS,
+                "false"))) {
+            List<String> knownKeys = new ArrayList<>(indexedKeys);
+            for (String key : uniqueKeys) {
+                int separator = key.indexOf('.');
+                if (separator > 0) {
+                    knownKeys.add(key.substring(0, separator));
+                }
+            }
+            if (deltaKey != null) {
+                knownKeys.add(deltaKey);
+            }
+            this.unknownKeyTracker = new UnknownKeyTracker(streamDefinition.getId(),
+                    new KeyIndex(knownKeys.toArray(new String[0]), new int[knownKeys.size()], caseInsensitiveKeys),
+                    siddhiAppContext);
+        }
+
+        this.batchMessages = Boolean.parseBoolean(optionHolder.validateAndGetStaticValue(BATCH_MESSAGES, "true"));
+        String positionalKeys = optionHolder.validateAndGetStaticValue(POSITIONAL_KEYS, null);
+        if (positionalKeys != null) {
+            String[] keyHeader = positionalKeys.split(",");
+            for (int i = 0; i < keyHeader.length; i++) {
+                keyHeader[i] = keyHeader[i].trim();
+            }
+            this.positionalHeader = new PositionalHeader(keyHeader);
+        } else {
+            String[] keyHeader = new String[attributesSize];
+            for (int i = 0; i < attributesSize; i++) {
+                keyHeader[i] = streamAttributes.get(i).getName();
+            }
+            for (AttributeMapping attributeMapping : attributeMappings) {
+                keyHeader[attributeMapping.getPosition()] = attributeMapping.getMapping();
+            }
+            this.positionalHeader = new PositionalHeader(keyHeader);
+        }
+
+        this.decompressionMaxSize = Integer.parseInt(optionHolder.validateAndGetStaticValue(DECOMPRESSION_MAX_SIZE,
+                String.valueOf(CompressionUtil.DEFAULT_MAX_DECOMPRESSED_SIZE)));
+        if (decompressionMaxSize <= 0) {
+            throw new SiddhiAppCreationException("The " + DECOMPRESSION_MAX_SIZE + " of the keyvalue source mapper " +
+                    "of stream '" + streamDefinition.getId() + "' should be positive, but found " +
+                    decompressionMaxSize + ".");
+        }
+
+        int decodingThreads = Integer.parseInt(optionHolder.validateAndGetStaticValue(DECODING_THREADS, "0"));
+        if (decodingThreads < 0) {
+            throw new SiddhiAppCreationException("The " + DECODING_THREADS + " of the keyvalue source mapper of " +
+                    "stream '" + streamDefinition.getId() + "' cannot be negative, but found " + decodingThreads +
+                    ".");
+        } else if (decodingThreads > 0) {
+            this.transportContext = TransportContext.of(this);
+            if (transportContext == null) {
+                log.warn("The transport properties of the messages of stream '" + streamDefinition.getId() +
+                        "' cannot be handed off with their events on other threads in this Siddhi version, hence " +
+                        "ignoring the " + DECODING_THREADS + " of the keyvalue source mapper and decoding the " +
+                        "messages on the transport thread.");
+            } else {
+                this.orderedDecoder = new OrderedDecoder(streamDefinition.getId(), decodingThreads);
+                siddhiAppContext.addEternalReferencedHolder(orderedDecoder);
+            }
+        }
+    }
+
+    /**
+     * Method to parse the default value of an attribute to the type of the attribute.
+     *
+     * @param name  name of the attribute.
+     * @param type  type of the attribute.
+     * @param value the configured default value.
+     * @return the typed default value.
+     */
+    private Object parseDefault(String name, Attribute.Type type, String value) {
+        try {
+            switch (type) {
+                case STRING:
+                    return value;
+                case INT:
+                    return Integer.parseInt(value.trim());
+                case LONG:
+                    return Long.parseLong(value.trim());
+                case FLOAT:
+                    return Float.parseFloat(value.trim());
+                case DOUBLE:
+                    return Double.parseDouble(value.trim());
+                case BOOL:
+                    if ("true".equalsIgnoreCase(value.trim()) || "false".equalsIgnoreCase(value.trim())) {
+                        return Boolean.parseBoolean(value.trim());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, along with the other values that do not match the type
+        }
+        throw new SiddhiAppCreationException("The " + name + DEFAULT_SUFFIX + " '" + value + "' of the keyvalue " +
+                "source mapper of stream '" + streamDefinition.getId() + "' is not a valid default for an attribute " +
+                "of type " + type + ".");
+    }
+
+    /**
+     * Method to compile the date time format of an attribute, sharing the parser of a format with the attributes
+     * that have the same format.
+     *
+     * @param name     name of the attribute.
+     * @param type     type of the attribute.
+     * @param format   the configured format.
+     * @param compiled parsers of the formats compiled so far.
+     * @return the parser of the format.
+     */
+    private TimestampParser compileFormat(String name, Attribute.Type type, String format,
+                                          Map<String, TimestampParser> compiled) {
+        if (type != Attribute.Type.LONG) {
+            throw new SiddhiAppCreationException("The " + name + FORMAT_SUFFIX + " of the keyvalue source mapper " +
+                    "of stream '" + streamDefinition.getId() + "' can only be given for an attribute of type LONG, " +
+                    "but the attribute is of type " + type + ".");
+        }
+        TimestampParser parser = compiled.get(format);
+        if (parser == null) {
+            try {
+                parser = new TimestampParser(format);
+            } catch (IllegalArgumentException e) {
+                throw new SiddhiAppCreationException("The " + name + FORMAT_SUFFIX + " '" + format + "' of the " +
+                        "keyvalue source mapper of stream '" + streamDefinition.getId() + "' is not a valid date " +
+                        "time format. " + e.getMessage(), e);
+            }
+            compiled.put(format, parser);
+        }
+        return parser;
+    }
+
+    private static char toDelimiter(String option, String value) {
+        if (value.length() != 1 || value.charAt(0) == '\\' || value.charAt(0) > 0x7f) {
+            throw new SiddhiAppCreationException("The " + option + " of the keyvalue source mapper should be a " +
+                    "single ASCII character other than a backslash, but found '" + value + "'.");
+        }
+        return value.charAt(0);
+    }
+
+    private static int indexOf(List<String> keys, String key) {
+        int index = keys.indexOf(key);
+        if (index < 0) {
+            keys.add(key);
+            index = keys.size() - 1;
+        }
+        return index;
     }
 
 
     @Override
     public Class[] getSupportedInputEventClasses() {
-        return new Class[]{Map.class, byte[].class};
+        return new Class[]{Map.class, byte[].class, ByteBuffer.class, String.class, List.class, Object[].class,
+                KeyValueRecord.class};
     }
 
     @Override
     protected void mapAndProcess(Object eventObject, InputEventHandler inputEventHandler)
             throws InterruptedException, MappingFailedException {
+        if (eventObject instanceof DecodedMessage) {
+            DecodedMessage decodedMessage = (DecodedMessage) eventObject;
+            if (decodedMessage.events.length == 1) {
+                sendEvent(decodedMessage.events[0], inputEventHandler);
+            } else if (decodedMessage.events.length > 0) {
+                sendEvents(decodedMessage.events, inputEventHandler);
+            }
+            if (!decodedMessage.failedEvents.isEmpty()) {
+                throw toMappingFailedException(decodedMessage.failedEvents);
+            }
+            return;
+        }
+        if (orderedDecoder != null) {
+            // Byte arrays are decoded on the decoder threads, and other messages, which the transport may reuse once
+            // they are mapped, on this thread, while the events of all messages are handed off in the order received
+            Object[] context = transportContext.capture();
+            orderedDecoder.submit((turn, failedEvents) -> {
+                boolean atInFlightLimit = loadShedder != null && loadShedder.enter();
+                try {
+                    if (isBatch(eventObject)) {
+                        turn.await();
+                        return createEventsForBatch(eventObject, atInFlightLimit, failedEvents);
+                    }
+                    return createEvents(eventObject, atInFlightLimit, turn, failedEvents);
+                } catch (MappingFailedException e) {
+                    failedEvents.add(new ErroneousEvent(eventObject, e, e.getMessage()));
+                    return NO_EVENTS;
+                } finally {
+                    if (loadShedder != null) {
+                        loadShedder.exit();
+                    }
+                }
+            }, (events, failedEvents) ->
+                    transportContext.onEvent(new DecodedMessage(events, failedEvents), context),
+                    !(eventObject instanceof byte[]));
+            return;
+        }
         List<ErroneousEvent> failedEvents = new ArrayList<>(0);
+        boolean atInFlightLimit = loadShedder != null && loadShedder.enter();
         try {
-            Event convertedEvent = createEventForMapping(eventObject);
-            inputEventHandler.sendEvent(convertedEvent);
+            Event[] events = isBatch(eventObject) ?
+                    createEventsForBatch(eventObject, atInFlightLimit, failedEvents) :
+                    createEvents(eventObject, atInFlightLimit, OrderedDecoder.SYNCHRONOUS, failedEvents);
+            if (events.length == 1) {
+                sendEvent(events[0], inputEventHandler);
+            } else if (events.length > 0) {
+                sendEvents(events, inputEventHandler);
+            }
         } catch (MappingFailedException e) {
             failedEvents.add(new ErroneousEvent(eventObject, e, e.getMessage()));
-            throw new MappingFailedException(failedEvents);
+        } finally {
+            if (loadShedder != null) {
+                loadShedder.exit();
+            }
+        }
+        if (!failedEvents.isEmpty()) {
+            throw toMappingFailedException(failedEvents);
         }
     }
 
+    /**
+     * Method to log the messages and records that cannot be mapped, so that they are reported even when the Siddhi
+     * app does not store erroneous events, and to wrap them for the error handling of the source.
+     *
+     * @param failedEvents the messages and records that cannot be mapped.
+     * @return the exception to throw.
+     */
+    private MappingFailedException toMappingFailedException(List<ErroneousEvent> failedEvents) {
+        log.error("Error while mapping " + failedEvents.size() + " message(s) or record(s) of stream '" +
+                streamDefinition.getId() + "', hence dropping them. " + failedEvents.get(0).getErrorMessage());
+        return new MappingFailedException(failedEvents);
+    }
+
     @Override
     protected boolean allowNullInTransportProperties() {
         return !failOnMissingAttribute;
     }
 
-    private Event createEventForMapping(Object eventObject) throws MappingFailedException {
+    /**
+     * Method to convert a received message to events, without handing them off to the stream.
+     *
+     * @param eventObject     the received message.
+     * @param atInFlightLimit whether the in-flight limit was exceeded when the message arrived.
+     * @param turn            turn of the message to use the values cached from earlier messages.
+     * @param failedEvents    list to which records of frames that cannot be mapped are added.
+     * @return the converted events, which are fewer than the records of the message when records are shed or fail.
+     */
+    private Event[] createEvents(Object eventObject, boolean atInFlightLimit, OrderedDecoder.Turn turn,
+                                 List<ErroneousEvent> failedEvents)
+            throws InterruptedException, MappingFailedException {
+        if (textParser != null && (eventObject instanceof String || eventObject instanceof byte[] ||
+                eventObject instanceof ByteBuffer)) {
+            turn.pass();
+            return createEventsForText(eventObject, atInFlightLimit);
+        } else if (eventObject instanceof ByteBuffer && isFrame((ByteBuffer) eventObject)) {
+            return decodeFrame((ByteBuffer) eventObject, eventObject, atInFlightLimit, turn, failedEvents);
+        } else if (eventObject instanceof byte[] || eventObject instanceof ByteBuffer) {
+            byte[] bytes = eventObject instanceof byte[] ? (byte[]) eventObject :
+                    toByteArray((ByteBuffer) eventObject);
+            ByteBuffer payload = decompress(bytes);
+            if (isFrame(payload)) {
+                return decodeFrame(payload, eventObject, atInFlightLimit, turn, failedEvents);
+            }
+            if (deltaCache == null) {
+                turn.pass();
+            }
+            return createEventsForKeyValueEvent(toKeyValueEvent(deserialize(payload)), atInFlightLimit, turn);
+        }
+        if (eventObject instanceof KeyValueRecord) {
+            return createEventsForRecord((KeyValueRecord) eventObject, atInFlightLimit, turn);
+        } else if (eventObject instanceof String[] && textParser == null) {
+            turn.pass();
+            positionalHeader = toPositionalHeader((String[]) eventObject);
+            return NO_EVENTS;
+        } else if (eventObject instanceof Object[] || eventObject instanceof List) {
+            return createEventsForRow(eventObject, atInFlightLimit, turn);
+        }
+        return createEventsForKeyValueEvent(toKeyValueEvent(eventObject), atInFlightLimit, turn);
+    }
+
+    private static int toPositive(String option, String value, String streamId) {
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, along with the values that are not positive
+        }
+        throw new SiddhiAppCreationException("The " + option + " of the keyvalue source mapper of stream '" +
+                streamId + "' should be a positive integer, but found '" + value + "'.");
+    }
+
+    /**
+     * Method to check whether a received message is a batch of messages, that is a non-empty list or array whose
+     * elements are all messages on their own, including positional rows and key headers. Lists and arrays holding
+     * any other value are positional rows, and all of them are when batches are disabled with
+     * {@code batch.messages}.
+     *
+     * @param eventObject the received message.
+     * @return true if the message is a batch.
+     */
+    private boolean isBatch(Object eventObject) {
+        if (!batchMessages) {
+            return false;
+        } else if (eventObject instanceof Object[]) {
+            Object[] elements = (Object[]) eventObject;
+            for (Object element : elements) {
+                if (!isMessage(element)) {
+                    return false;
+                }
+            }
+            return elements.length > 0;
+        } else if (eventObject instanceof List) {
+            List<?> elements = (List<?>) eventObject;
+            for (Object element : elements) {
+                if (!isMessage(element)) {
+                    return false;
+                }
+            }
+            return !elements.isEmpty();
+        }
+        return false;
+    }
+
+    private boolean isMessage(Object element) {
+        return element instanceof Map || element instanceof KeyValueRecord || element instanceof byte[] ||
+                element instanceof ByteBuffer || element instanceof Object[] || element instanceof List ||
+                (textParser != null && element instanceof String);
+    }
+
+    /**
+     * Method to convert a batch of messages to events in the order of the messages. Messages of the batch that
+     * cannot be mapped are added to the failed events, without failing the rest of the batch. Batches are always
+     * decoded on the receiving thread, once the turns of the messages received before them have passed.
+     *
+     * @param eventObject     list or array of messages.
+     * @param atInFlightLimit whether the in-flight limit was exceeded when the batch arrived.
+     * @param failedEvents    list to which the messages and records that cannot be mapped are added.
+     * @return the converted events of all the messages of the batch.
+     */
+    private Event[] createEventsForBatch(Object eventObject, boolean atInFlightLimit,
+                                         List<ErroneousEvent> failedEvents) throws InterruptedException {
+        List<?> elements = eventObject instanceof Object[] ? Arrays.asList((Object[]) eventObject) :
+                (List<?>) eventObject;
+        Event[] events = new Event[elements.size()];
+        int eventCount = 0;
+        for (Object element : elements) {
+            Event[] elementEvents;
+            try {
+                elementEvents = createEvents(element, atInFlightLimit, OrderedDecoder.SYNCHRONOUS, failedEvents);
+            } catch (MappingFailedException e) {
+                failedEvents.add(new ErroneousEvent(element, e, e.getMessage()));
+                continue;
+            }
+            if (eventCount + elementEvents.length > events.length) {
+                events = Arrays.copyOf(events, Math.max(events.length * 2, eventCount + elementEvents.length));
+            }
+            if (elementEvents.length == 1) {
+                events[eventCount++] = elementEvents[0];
+            } else {
+                System.arraycopy(elementEvents, 0, events, eventCount, elementEvents.length);
+                eventCount += elementEvents.length;
+            }
+        }
+        return eventCount == events.length ? events : Arrays.copyOf(events, eventCount);
+    }
+
+    private Event[] createEventsForKeyValueEvent(Map<String, Object> keyValueEvent, boolean atInFlightLimit,
+                                                 OrderedDecoder.Turn turn)
+            throws InterruptedException, MappingFailedException {
+        if (unknownKeyTracker != null) {
+            String unknownKey = unknownKeyTracker.check(keyValueEvent);
+            if (unknownKey != null && failOnUnknownKey) {
+                throw new MappingFailedException("Key value map with the unknown key '" + unknownKey +
+                        "' received. Hence dropping the message.");
+            }
+        }
+        if (deltaCache != null) {
+            Object[] values;
+            turn.await();
+            try {
+                values = mergeDelta(keyValueEvent);
+            } finally {
+                turn.pass();
+            }
+            if (loadShedder != null && loadShedder.shouldShed(
+                    shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+                return NO_EVENTS;
+            }
+            return new Event[]{createEventForValues(values, keyValueEvent)};
+        }
+        if (nestedKeyResolver != null || matchKeys) {
+            Object[] values = new Object[keyIndexSize];
+            if (nestedKeyResolver != null) {
+                nestedKeyResolver.resolve(keyValueEvent, values);
+            } else {
+                for (int i = 0; i < keyIndexSize; i++) {
+                    values[i] = keyValueEvent.get(uniqueKeys[i]);
+                }
+            }
+            if (matchKeys) {
+                matchMissingKeys(keyValueEvent, values, null);
+            }
+            if (loadShedder != null && loadShedder.shouldShed(
+                    shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+                return NO_EVENTS;
+            }
+            return new Event[]{createEventForValues(values, keyValueEvent)};
+        }
+        if (loadShedder != null && loadShedder.shouldShed(
+                shedPriorityKey == null ? null : keyValueEvent.get(shedPriorityKey), atInFlightLimit)) {
+            return NO_EVENTS;
+        }
+        return new Event[]{createEventForMapping(keyValueEvent)};
+    }
+
+    private Event[] createEventsForRecord(KeyValueRecord record, boolean atInFlightLimit, OrderedDecoder.Turn turn)
+            throws InterruptedException, MappingFailedException {
+        if (deltaCache != null || nestedKeyResolver != null || matchKeys || unknownKeyTracker != null) {
+            return createEventsForKeyValueEvent(record.toMap(), atInFlightLimit, turn);
+        }
+        if (loadShedder != null && loadShedder.shouldShed(
+                shedPriorityKey == null ? null : record.get(shedPriorityKey), atInFlightLimit)) {
+            return NO_EVENTS;
+        }
+        return new Event[]{createEventForRecord(record)};
+    }
+
+    private PositionalHeader toPositionalHeader(String[] keys) throws MappingFailedException {
+        for (String key : keys) {
+            if (key == null) {
+                String errStr = "Positional key header " + Arrays.toString(keys) + " with a null key received. " +
+                        "Hence dropping the message.";
+                log.error(errStr);
+                throw new MappingFailedException(errStr);
+            }
+        }
+        return new PositionalHeader(keys.clone());
+    }
+
+    /**
+     * Method to convert a positional row to events, placing each value at the index of the key of its position in
+     * the current {@link PositionalHeader}.
+     *
+     * @param row             the received {@code Object[]} or {@code List} of values.
+     * @param atInFlightLimit whether the in-flight limit was exceeded when the row arrived.
+     * @param turn            turn of the row to merge it with the values cached from earlier messages.
+     * @return the converted events.
+     */
+    private Event[] createEventsForRow(Object row, boolean atInFlightLimit, OrderedDecoder.Turn turn)
+            throws InterruptedException, MappingFailedException {
+        PositionalHeader header = positionalHeader;
+        Object[] array = row instanceof Object[] ? (Object[]) row : null;
+        List<?> list = array == null ? (List<?>) row : null;
+        int length = array != null ? array.length : list.size();
+        int columns = Math.min(length, header.keys.length);
+        if (deltaCache != null) {
+            Map<String, Object> keyValueEvent = new HashMap<>();
+            for (int i = 0; i < columns; i++) {
+                keyValueEvent.put(header.keys[i], array != null ? array[i] : list.get(i));
+            }
+            return createEventsForKeyValueEvent(keyValueEvent, atInFlightLimit, turn);
+        }
+        turn.pass();
+        int unknownKeys = header.unknownKeys + Math.max(0, length - header.keys.length);
+        if (unknownKeys > 0 && unknownKeyTracker != null) {
+            unknownKeyTracker.record(unknownKeys, null);
+            if (failOnUnknownKey) {
+                throw new MappingFailedException("Positional key value message with " + unknownKeys +
+                        " unknown key(s) received. Hence dropping the message.");
+            }
+        }
+        Object[] values = new Object[keyIndexSize];
+        for (int i = 0; i < columns; i++) {
+            int index = header.valueIndexes[i];
+            if (index >= 0 && values[index] == null) {
+                values[index] = array != null ? array[i] : list.get(i);
+            }
+        }
+        if (loadShedder != null && loadShedder.shouldShed(
+                shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+            return NO_EVENTS;
+        }
+        return new Event[]{createEventForValues(values, values)};
+    }
+
+    private Event[] decodeFrame(ByteBuffer frame, Object eventObject, boolean atInFlightLimit,
+                                OrderedDecoder.Turn turn, List<ErroneousEvent> failedEvents)
+            throws InterruptedException, MappingFailedException {
+        if (ColumnarFrameReader.isFrame(frame)) {
+            turn.pass();
+            return createEventsForColumnarFrame(frame, eventObject, atInFlightLimit, failedEvents);
+        }
+        return createEventsForFrame(frame, eventObject, atInFlightLimit, turn, failedEvents);
+    }
+
+    private Event[] createEventsForText(Object eventObject, boolean atInFlightLimit) throws MappingFailedException {
+        Object[] values = new Object[keyIndexSize];
+        int unknownKeys;
+        try {
+            if (eventObject instanceof String) {
+                unknownKeys = textParser.parse((String) eventObject, values);
+            } else {
+                ByteBuffer buffer = eventObject instanceof byte[] ? ByteBuffer.wrap((byte[]) eventObject) :
+                        (ByteBuffer) eventObject;
+                if (buffer.hasArray()) {
+                    unknownKeys = textParser.parse(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                            buffer.remaining(), values);
+                } else {
+                    byte[] bytes = toByteArray(buffer);
+                    unknownKeys = textParser.parse(bytes, 0, bytes.length, values);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            String errStr = "Invalid text key value message received. " + e.getMessage() +
+                    ". Hence dropping the message.";
+            log.error(errStr, e);
+            throw new MappingFailedException(errStr, e);
+        }
+        if (unknownKeys > 0 && unknownKeyTracker != null) {
+            unknownKeyTracker.record(unknownKeys, null);
+            if (failOnUnknownKey) {
+                throw new MappingFailedException("Text key value message with " + unknownKeys + " unknown key(s) " +
+                        "received. Hence dropping the message.");
+            }
+        }
+        if (loadShedder != null && loadShedder.shouldShed(
+                shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+            return NO_EVENTS;
+        }
+        return new Event[]{createEventForValues(values, values)};
+    }
+
+    /**
+     * Method to rebuild the full values of an entity from a delta, where keys that are absent from the delta keep
+     * the value last received for the same entity. Deltas are merged before load shedding, so that shed messages
+     * still update the last values.
+     *
+     * @param keyValueEvent the received delta.
+     * @return the value of each key.
+     * @throws MappingFailedException if the delta is partial and the values of its entity are not cached, as after
+     *                                a restart or an eviction from the cache.
+     */
+    private Object[] mergeDelta(Map<String, Object> keyValueEvent) throws MappingFailedException {
+        Object[] values = new Object[keyIndexSize];
+        boolean[] present = new boolean[keyIndexSize];
+        for (int i = 0; i < keyIndexSize; i++) {
+            values[i] = keyValueEvent.get(uniqueKeys[i]);
+            present[i] = values[i] != null || keyValueEvent.containsKey(uniqueKeys[i]);
+        }
+        if (matchKeys) {
+            matchMissingKeys(keyValueEvent, values, present);
+        }
+        Object key = keyValueEvent.get(deltaKey);
+        if (key == null) {
+            return values;
+        }
+        Object[] merged = deltaCache.merge(key, values, present);
+        if (merged == null) {
+            throw new MappingFailedException("Delta of the unknown entity '" + key + "' of " + DELTA_KEY + " '" +
+                    deltaKey + "' received, whose last values are not cached. Hence dropping the message until " +
+                    "the next full event of the entity.");
+        }
+        return merged;
+    }
+
+    /**
+     * Method to match the keys that were not found by their exact name against aliases, or ignoring case. When any
+     * key is missing, the entries of the received map are passed once, looking up each entry key in the key index.
+     *
+     * @param keyValueEvent the received map.
+     * @param values        the value of each key, where missing values are filled in.
+     * @param present       whether the map has each key, or null to treat null values as missing.
+     */
+    private void matchMissingKeys(Map<String, Object> keyValueEvent, Object[] values, boolean[] present) {
+        boolean missing = false;
+        for (int i = 0; i < keyIndexSize && !missing; i++) {
+            missing = present == null ? values[i] == null : !present[i];
+        }
+        if (!missing) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : keyValueEvent.entrySet()) {
+            int index = entry.getKey() == null ? -1 : keyIndex.get(entry.getKey());
+            if (index >= 0 && (present == null ? values[index] == null : !present[index])) {
+                values[index] = entry.getValue();
+                if (present != null) {
+                    present[index] = true;
+                }
+            }
+        }
+    }
+
+    private static boolean isFrame(ByteBuffer buffer) {
+        return BinaryFrameReader.isFrame(buffer) || BinaryFrameReader.isSparseFrame(buffer) ||
+                BinaryFrameReader.isSchemaFrame(buffer) || ColumnarFrameReader.isFrame(buffer);
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private void sendEvent(Event event, InputEventHandler inputEventHandler) throws InterruptedException {
+        if (loadShedder == null) {
+            inputEventHandler.sendEvent(event);
+        } else {
+            long start = System.nanoTime();
+            inputEventHandler.sendEvent(event);
+            loadShedder.recordHandOff(System.nanoTime() - start);
+        }
+    }
+
+    private void sendEvents(Event[] events, InputEventHandler inputEventHandler) throws InterruptedException {
+        if (loadShedder == null) {
+            inputEventHandler.sendEvents(events);
+        } else {
+            long start = System.nanoTime();
+            inputEventHandler.sendEvents(events);
+            loadShedder.recordHandOff((System.nanoTime() - start) / events.length);
+        }
+    }
+
+    private Map<String, Object> toKeyValueEvent(Object eventObject) throws MappingFailedException {
         String errStr;
-        Map<String, Object> keyValueEvent = null;
         if (eventObject == null) {
             errStr = "Null object received. Expected anMap.";
             log.error(errStr);
             throw new MappingFailedException(errStr);
         }
-        if (eventObject instanceof byte[]) {
-            Object deserializeObject = deserialize((byte[]) eventObject);
-            if (deserializeObject instanceof Map) {
-                keyValueEvent = (Map<String, Object>) deserializeObject;
-            }
-        } else if (eventObject instanceof Map) {
-            keyValueEvent = (Map<String, Object>) eventObject;
+        if (eventObject instanceof Map) {
+            return (Map<String, Object>) eventObject;
         } else {
             errStr = "Invalid Map object received. Expected Map, but found " +
                     eventObject.getClass().getCanonicalName();
             log.error(errStr);
             throw new MappingFailedException(errStr);
         }
+    }
+
+    private Event createEventForMapping(Map<String, Object> keyValueEvent) throws MappingFailedException {
         Event event = new Event(attributesSize);
-        Object data[] = event.getData();
-        for (AttributeMapping attributeMapping : attributeMappingList) {
-            int position = attributeMapping.getPosition();
-            Attribute.Type type = streamAttributes.get(position).getType();
-            Object value = keyValueEvent.get(attributeMapping.getMapping());
-            if (value == null) {
-                data[position] = null;
-                if (failOnMissingAttribute) {
-                    errStr = "Stream \"" + streamDefinition.getId() +
-                            "\" has an attribute named \"" + attributeMapping.getName() +
-                            "\", but the received event " + keyValueEvent.toString() +
-                            " does not has a value for that attribute. Hence dropping the message.";
-                    log.error(errStr);
-                    throw new MappingFailedException(errStr);
-                } else {
+        Object[] data = event.getData();
+        for (int i = 0; i < attributeMappings.length; i++) {
+            setAttribute(data, i, keyValueEvent.get(attributeMappings[i].getMapping()), keyValueEvent);
+        }
+        return event;
+    }
+
+    /**
+     * Method to create an event from a record, reading the values whose type matches the mapped attribute through
+     * the typed getters of the record, and converting the other values as the values of a map.
+     *
+     * @param record the received record.
+     * @return the created event.
+     */
+    private Event createEventForRecord(KeyValueRecord record) throws MappingFailedException {
+        Event event = new Event(attributesSize);
+        Object[] data = event.getData();
+        for (int i = 0; i < attributeMappings.length; i++) {
+            String key = attributeMappings[i].getMapping();
+            int position = attributeMappings[i].getPosition();
+            Attribute.Type type = record.getType(key);
+            if (type != attributeTypes[i]) {
+                setAttribute(data, i, record.get(key), record);
+                continue;
+            }
+            switch (type) {
+                case INT:
+                    data[position] = record.getInt(key);
+                    break;
+                case LONG:
+                    data[position] = record.getLong(key);
+                    break;
+                case FLOAT:
+                    data[position] = record.getFloat(key);
+                    break;
+                case DOUBLE:
+                    data[position] = record.getDouble(key);
+                    break;
+                case BOOL:
+                    data[position] = record.getBoolean(key);
+                    break;
+                case STRING:
+                    data[position] = record.getString(key);
+                    break;
+                default:
+                    setAttribute(data, i, record.get(key), record);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Method to create an event from values decoded at the positions given by {@link #valueIndexes}.
+     *
+     * @param values  the decoded values.
+     * @param message the received message, only used to describe failures.
+     * @return the created event.
+     */
+    private Event createEventForValues(Object[] values, Object message) throws MappingFailedException {
+        Event event = new Event(attributesSize);
+        Object[] data = event.getData();
+        for (int i = 0; i < attributeMappings.length; i++) {
+            setAttribute(data, i, values[valueIndexes[i]], message);
+        }
+        return event;
+    }
+
+    /**
+     * Method to decode all records of a binary key value frame in a single pass. Records that cannot be mapped are
+     * added to the failed events, while the remaining records are still converted.
+     *
+     * @param frame           buffer positioned at the start of the frame.
+     * @param eventObject     the received message, used when reporting failures.
+     * @param atInFlightLimit whether the in-flight limit was exceeded when the frame arrived.
+     * @param turn            turn of the frame to read the dictionary entries and schema plans cached from earlier
+     *                        frames.
+     * @param failedEvents    list to which records that cannot be mapped are added.
+     * @return events converted from the records of the frame.
+     */
+    private Event[] createEventsForFrame(ByteBuffer frame, Object eventObject, boolean atInFlightLimit,
+                                         OrderedDecoder.Turn turn, List<ErroneousEvent> failedEvents)
+            throws InterruptedException, MappingFailedException {
+        if (frame.order() != ByteOrder.BIG_ENDIAN) {
+            frame = frame.duplicate().order(ByteOrder.BIG_ENDIAN);
+        }
+        int recordCount;
+        int offset;
+        int[] sparseKeyIndexes = null;
+        String[] dictionary;
+        if (BinaryFrameReader.isSchemaFrame(frame) || BinaryFrameReader.hasDictionary(frame)) {
+            turn.await();
+        }
+        try {
+            recordCount = BinaryFrameReader.getRecordCount(frame);
+            dictionary = binaryFrameReader.readDictionary(frame);
+            if (BinaryFrameReader.isSparseFrame(frame)) {
+                sparseKeyIndexes = binaryFrameReader.readSparseKeys(frame);
+                offset = BinaryFrameReader.getFirstSparseRecordOffset(frame);
+            } else if (BinaryFrameReader.isSchemaFrame(frame)) {
+                sparseKeyIndexes = binaryFrameReader.readSchemaPlan(frame);
+                offset = BinaryFrameReader.getFirstSchemaRecordOffset(frame);
+            } else {
+                offset = BinaryFrameReader.getFirstRecordOffset(frame);
+            }
+            BinaryFrameReader.checkRecordCount(frame, offset, recordCount, sparseKeyIndexes);
+        } catch (RuntimeException e) {
+            String errStr = "Invalid key value frame received. " + e.getMessage() + " Hence dropping the message.";
+            log.error(errStr, e);
+            throw new MappingFailedException(errStr, e);
+        } finally {
+            turn.pass();
+        }
+        if (sparseKeyIndexes != null && unknownKeyTracker != null) {
+            int unknownKeys = unknownKeyTracker.check(sparseKeyIndexes);
+            if (unknownKeys > 0 && failOnUnknownKey) {
+                throw new MappingFailedException("Key value frame with " + unknownKeys + " unknown key(s) " +
+                        "received. Hence dropping the message.");
+            }
+        }
+        Event[] events = new Event[recordCount];
+        int eventCount = 0;
+        Object[] values = new Object[keyIndexSize];
+        for (int i = 0; i < recordCount; i++) {
+            try {
+                offset = sparseKeyIndexes == null ? binaryFrameReader.readRecord(frame, offset, dictionary, values) :
+                        binaryFrameReader.readSparseRecord(frame, offset, sparseKeyIndexes, dictionary, values);
+            } catch (RuntimeException e) {
+                String errStr = "Invalid key value frame received. Record " + i + " of " + recordCount +
+                        " cannot be decoded, " + e.getMessage() + " Hence dropping the remaining records.";
+                log.error(errStr, e);
+                failedEvents.add(new ErroneousEvent(eventObject, e, errStr));
+                break;
+            }
+            if (loadShedder != null && loadShedder.shouldShed(
+                    shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+                continue;
+            }
+            try {
+                Event event = createEventForValues(values, values);
+                events[eventCount++] = event;
+            } catch (MappingFailedException e) {
+                failedEvents.add(new ErroneousEvent(eventObject, e, e.getMessage()));
+            }
+        }
+        return eventCount == recordCount ? events : Arrays.copyOf(events, eventCount);
+    }
+
+    /**
+     * Method to decode all rows of a columnar key value frame, converting each row to an event. Rows that cannot be
+     * mapped are added to the failed events, while the remaining rows are still converted.
+     *
+     * @param frame           buffer positioned at the start of the frame.
+     * @param eventObject     the received message, used when reporting failures.
+     * @param atInFlightLimit whether the in-flight limit was exceeded when the frame arrived.
+     * @param failedEvents    list to which rows that cannot be mapped are added.
+     * @return events converted from the rows of the frame.
+     */
+    private Event[] createEventsForColumnarFrame(ByteBuffer frame, Object eventObject, boolean atInFlightLimit,
+                                                 List<ErroneousEvent> failedEvents) throws MappingFailedException {
+        if (frame.order() != ByteOrder.BIG_ENDIAN) {
+            frame = frame.duplicate().order(ByteOrder.BIG_ENDIAN);
+        }
+        Object[][] rows;
+        try {
+            rows = columnarFrameReader.read(frame, keyIndexSize);
+        } catch (RuntimeException e) {
+            String errStr = "Invalid columnar key value frame received. " + e.getMessage() +
+                    " Hence dropping the message.";
+            log.error(errStr, e);
+            throw new MappingFailedException(errStr, e);
+        }
+        Event[] events = new Event[rows.length];
+        int eventCount = 0;
+        for (Object[] values : rows) {
+            if (loadShedder != null && loadShedder.shouldShed(
+                    shedPriorityIndex < 0 ? null : values[shedPriorityIndex], atInFlightLimit)) {
+                continue;
+            }
+            try {
+                Event event = createEventForValues(values, values);
+                events[eventCount++] = event;
+            } catch (MappingFailedException e) {
+                failedEvents.add(new ErroneousEvent(eventObject, e, e.getMessage()));
+            }
+        }
+        return eventCount == rows.length ? events : Arrays.copyOf(events, eventCount);
+    }
+
+    /**
+     * Method to convert a received value to the type of the mapped attribute and to set it in the event data.
+     *
+     * @param data    data of the event being created.
+     * @param index   index of the attribute mapping.
+     * @param value   received value of the attribute, or null if the message does not have one.
+     * @param message the received message, only used to describe failures.
+     */
+    private void setAttribute(Object[] data, int index, Object value, Object message)
+            throws MappingFailedException {
+        String errStr;
+        AttributeMapping attributeMapping = attributeMappings[index];
+        int position = attributeMapping.getPosition();
+        Attribute.Type type = attributeTypes[index];
+        if (value == null) {
+            data[position] = defaultValues[index];
+            if (defaultValues[index] != null) {
+                return;
+            } else if (failOnMissingAttribute) {
+                errStr = "Stream \"" + streamDefinition.getId() +
+                        "\" has an attribute named \"" + attributeMapping.getName() +
+                        "\", but the received event " + describe(message) +
+                        " does not has a value for that attribute. Hence dropping the message.";
+                log.error(errStr);
+                throw new MappingFailedException(errStr);
+            } else {
+                if (log.isDebugEnabled()) {
                     log.debug("Stream \"" + streamDefinition.getId() +
                             "\" has an attribute named \"" + attributeMapping.getName() +
-                            "\", but the received event " + keyValueEvent.toString() +
+                            "\", but the received event " + describe(message) +
                             " does not has a value for that attribute. Since fail.on.missing.attribute is false" +
                             "null value inserted");
-                    data[position] = null;
-                    continue;
                 }
+                return;
             }
-            switch (type) {
-                case BOOL:
-                    if (value instanceof Boolean) {
-                        data[position] = value;
-                    } else if (implicitCastEnable) {
-                        try {
-                            data[position] = Boolean.parseBoolean(value.toString());
-                        } catch (Exception e) {
-                            errStr = "Message " + keyValueEvent.toString() +
-                                    " contains incompatible attribute types and values. Value " +
-                                    value + " is not compatible with type BOOL," +
-                                    "Hence dropping the message";
-                            log.error(errStr);
-                            throw new MappingFailedException(errStr, e);
-                        }
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+        }
+        switch (type) {
+            case BOOL:
+                if (value instanceof Boolean) {
+                    data[position] = value;
+                } else if (implicitCastEnable) {
+                    try {
+                        data[position] = Boolean.parseBoolean(value.toString());
+                    } catch (Exception e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
                                 value + " is not compatible with type BOOL," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                case INT:
-                    if (value instanceof Integer) {
-                        data[position] = value;
-                    } else if (value instanceof BigInteger) {
-                        data[position] = ((BigInteger) value).intValue();
-                    } else if (value instanceof BigDecimal) {
-                        data[position] = ((BigDecimal) value).intValue();
-                    } else if (implicitCastEnable) {
-                        try {
-                            data[position] = Integer.parseInt(value.toString());
-                        } catch (NumberFormatException e) {
-                            errStr = "Message " + keyValueEvent.toString() +
-                                    " contains incompatible attribute types and values. Value " +
-                                    value + " is not compatible with type INTEGER," +
-                                    "Hence dropping the message";
-                            log.error(errStr);
-                            throw new MappingFailedException(errStr, e);
-                        }
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type BOOL," +
+                            "Hence dropping the message";
+                    log.error(errStr);
+                    throw new MappingFailedException(errStr);
+                }
+                break;
+            case INT:
+                if (value instanceof Integer) {
+                    data[position] = value;
+                } else if (value instanceof BigInteger) {
+                    data[position] = ((BigInteger) value).intValue();
+                } else if (value instanceof BigDecimal) {
+                    data[position] = ((BigDecimal) value).intValue();
+                } else if (implicitCastEnable) {
+                    try {
+                        data[position] = Integer.parseInt(value.toString());
+                    } catch (NumberFormatException e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
                                 value + " is not compatible with type INTEGER," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                case DOUBLE:
-                    if (value instanceof Double) {
-                        data[position] = value;
-                    } else if (value instanceof BigDecimal) {
-                        data[position] = ((BigDecimal) value).doubleValue();
-                    } else if (value instanceof BigInteger) {
-                        data[position] = ((BigInteger) value).doubleValue();
-                    } else if (implicitCastEnable) {
-                        try {
-                            data[position] = Double.parseDouble(value.toString());
-                        } catch (NumberFormatException e) {
-                            errStr = "Message " + keyValueEvent.toString() +
-                                    " contains incompatible attribute types and values. Value " +
-                                    value + " is not compatible with type DOUBLE," +
-                                    "Hence dropping the message";
-                            log.error(errStr);
-                            throw new MappingFailedException(errStr, e);
-                        }
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type INTEGER," +
+                            "Hence dropping the message";
+                    log.error(errStr);
+                    throw new MappingFailedException(errStr);
+                }
+                break;
+            case DOUBLE:
+                if (value instanceof Double) {
+                    data[position] = value;
+                } else if (value instanceof BigDecimal) {
+                    data[position] = ((BigDecimal) value).doubleValue();
+                } else if (value instanceof BigInteger) {
+                    data[position] = ((BigInteger) value).doubleValue();
+                } else if (implicitCastEnable) {
+                    try {
+                        data[position] = Double.parseDouble(value.toString());
+                    } catch (NumberFormatException e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
                                 value + " is not compatible with type DOUBLE," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                case STRING:
-                    if (value instanceof String || value instanceof BigInteger || value instanceof BigDecimal ||
-                            value instanceof Time || value instanceof Date || value instanceof Timestamp) {
-                        data[position] = value.toString();
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type DOUBLE," +
+                            "Hence dropping the message";
+                    log.error(errStr);
+                    throw new MappingFailedException(errStr);
+                }
+                break;
+            case STRING:
+                if (value instanceof String || value instanceof BigInteger || value instanceof BigDecimal ||
+                        value instanceof Time || value instanceof Date || value instanceof Timestamp) {
+                    data[position] = value.toString();
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type STRING," +
+                            "Hence dropping the message";
+                    log.error(errStr);
+                    throw new MappingFailedException(errStr);
+                }
+                break;
+            case FLOAT:
+                if (value instanceof Float) {
+                    data[position] = value;
+                } else if (value instanceof BigInteger) {
+                    data[position] = ((BigInteger) value).floatValue();
+                } else if (value instanceof BigDecimal) {
+                    data[position] = ((BigDecimal) value).floatValue();
+                } else if (implicitCastEnable) {
+                    try {
+                        data[position] = Float.parseFloat(value.toString());
+                    } catch (NumberFormatException e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
-                                value + " is not compatible with type STRING," +
+                                value + " is not compatible with type FLOAT," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                case FLOAT:
-                    if (value instanceof Float) {
-                        data[position] = value;
-                    } else if (value instanceof BigInteger) {
-                        data[position] = ((BigInteger) value).floatValue();
-                    } else if (value instanceof BigDecimal) {
-                        data[position] = ((BigDecimal) value).floatValue();
-                    } else if (implicitCastEnable) {
-                        try {
-                            data[position] = Float.parseFloat(value.toString());
-                        } catch (NumberFormatException e) {
-                            errStr = "Message " + keyValueEvent.toString() +
-                                    " contains incompatible attribute types and values. Value " +
-                                    value + " is not compatible with type FLOAT," +
-                                    "Hence dropping the message";
-                            log.error(errStr);
-                            throw new MappingFailedException(errStr, e);
-                        }
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type FLOAT," +
+                            "Hence dropping the message";
+                    log.error(errStr);
+                    throw new MappingFailedException(errStr);
+                }
+                break;
+            case LONG:
+                if (value instanceof Long) {
+                    data[position] = value;
+                } else if (value instanceof BigInteger) {
+                    data[position] = ((BigInteger) value).longValue();
+                } else if (value instanceof BigDecimal) {
+                    data[position] = ((BigDecimal) value).longValue();
+                } else if (value instanceof Timestamp) {
+                    data[position] = ((Timestamp) value).getTime();
+                } else if (timestampParsers[index] != null && value instanceof CharSequence) {
+                    try {
+                        data[position] = timestampParsers[index].parse((CharSequence) value);
+                    } catch (DateTimeException | ArithmeticException e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
-                                value + " is not compatible with type FLOAT," +
+                                value + " does not match the format '" + timestampParsers[index].getFormat() +
+                                "' of type LONG," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                case LONG:
-                    if (value instanceof Long) {
-                        data[position] = value;
-                    } else if (value instanceof BigInteger) {
-                        data[position] = ((BigInteger) value).longValue();
-                    } else if (value instanceof BigDecimal) {
-                        data[position] = ((BigDecimal) value).longValue();
-                    } else if (value instanceof Timestamp) {
-                        data[position] = ((Timestamp) value).getTime();
-                    } else if (implicitCastEnable) {
-                        try {
-                            data[position] = Long.parseLong(value.toString());
-                        } catch (NumberFormatException e) {
-                            errStr = "Message " + keyValueEvent.toString() +
-                                    " contains incompatible attribute types and values. Value " +
-                                    value + " is not compatible with type LONG," +
-                                    "Hence dropping the message";
-                            log.error(errStr);
-                            throw new MappingFailedException(errStr, e);
-                        }
-                    } else {
-                        errStr = "Message " + keyValueEvent.toString() +
+                } else if (value instanceof java.util.Date) {
+                    data[position] = ((java.util.Date) value).getTime();
+                } else if (value instanceof TemporalAccessor) {
+                    try {
+                        data[position] = TimestampParser.toEpochMillis((TemporalAccessor) value);
+                    } catch (DateTimeException | ArithmeticException e) {
+                        errStr = "Message " + describe(message) +
                                 " contains incompatible attribute types and values. Value " +
                                 value + " is not compatible with type LONG," +
                                 "Hence dropping the message";
                         log.error(errStr);
-                        throw new MappingFailedException(errStr);
+                        throw new MappingFailedException(errStr, e);
                     }
-                    break;
-                default:
-                    errStr = "Stream Definition's attribute type, \"" + type + "\", is not supported." +
+                } else if (implicitCastEnable) {
+                    try {
+                        data[position] = Long.parseLong(value.toString());
+                    } catch (NumberFormatException e) {
+                        errStr = "Message " + describe(message) +
+                                " contains incompatible attribute types and values. Value " +
+                                value + " is not compatible with type LONG," +
+                                "Hence dropping the message";
+                        log.error(errStr);
+                        throw new MappingFailedException(errStr, e);
+                    }
+                } else {
+                    errStr = "Message " + describe(message) +
+                            " contains incompatible attribute types and values. Value " +
+                            value + " is not compatible with type LONG," +
                             "Hence dropping the message";
                     log.error(errStr);
                     throw new MappingFailedException(errStr);
+                }
+                break;
+            default:
+                errStr = "Stream Definition's attribute type, \"" + type + "\", is not supported." +
+                        "Hence dropping the message";
+                log.error(errStr);
+                throw new MappingFailedException(errStr);
+        }
+    }
+
+    /**
+     * Method to describe a received message in failure logs. Values decoded from binary records are described
+     * together with the keys they are mapped from.
+     *
+     * @param message the received message, or the values decoded from it.
+     * @return description of the message.
+     */
+    private String describe(Object message) {
+        if (message instanceof Object[]) {
+            Object[] values = (Object[]) message;
+            StringBuilder description = new StringBuilder("{");
+            for (int i = 0; i < attributeMappings.length; i++) {
+                if (i > 0) {
+                    description.append(", ");
+                }
+                description.append(attributeMappings[i].getMapping()).append('=').append(values[valueIndexes[i]]);
             }
+            return description.append('}').toString();
+        }
+        return String.valueOf(message);
+    }
+
+    /**
+     * Method to decompress the byte array if it is compressed with one of the supported compressions.
+     *
+     * @param eventObject byte array to decompress.
+     * @return buffer holding the decompressed bytes.
+     */
+    private ByteBuffer decompress(byte[] eventObject) throws MappingFailedException {
+        CompressionUtil.Compression compression = CompressionUtil.detect(eventObject);
+        try {
+            return CompressionUtil.decompress(compression, eventObject, decompressionMaxSize);
+        } catch (DataFormatException e) {
+            String errStr = "Error is encountered when decompressing the " + compression + " compressed byte array. "
+                    + e.getMessage();
+            log.error(errStr, e);
+            throw new MappingFailedException(errStr, e);
         }
-        return event;
     }
 
     /**
-     * Method to deserialize the byte array into the original object.
+     * Method to deserialize the byte array into the original object, only instantiating the classes allowed by
+     * {@link #classAllowList}.
      *
-     * @param eventObject byte array to deserialize.
+     * @param eventObject buffer holding the bytes to deserialize.
      * @return Object after deserialized the byte array or null if error is occurred while deserializing the byte array.
      */
-    private Object deserialize(byte[] eventObject) throws MappingFailedException {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(eventObject);
-        ObjectInputStream objectInputStream;
+    private Object deserialize(ByteBuffer eventObject) throws MappingFailedException {
         try {
-            objectInputStream = new ObjectInputStream(byteArrayInputStream);
-            return objectInputStream.readObject();
+            return classAllowList.deserialize(eventObject.array(), eventObject.arrayOffset() + eventObject.position(),
+                    eventObject.remaining());
         } catch (IOException | ClassNotFoundException e) {
             String errStr = "Error is encountered when deserialize the byte array to Map Object"
                     + e.getMessage();
@@ -401,6 +1738,45 @@ public class KeyValueSourceMapper extends SourceMapper {
         }
     }
 
+    /**
+     * Events and failures of a message decoded by the {@link #orderedDecoder}, which are passed to the mapper again
+     * on the thread that hands them off, with the transport context of the message.
+     */
+    private static class DecodedMessage {
+
+        private final Event[] events;
+        private final List<ErroneousEvent> failedEvents;
+
+        private DecodedMessage(Event[] events, List<ErroneousEvent> failedEvents) {
+            this.events = events;
+            this.failedEvents = failedEvents;
+        }
+    }
+
+    /**
+     * Keys of the values of positional rows, along with the index in the decoded values of the key at each
+     * position, which is negative for keys that are not mapped.
+     */
+    private class PositionalHeader {
+
+        private final String[] keys;
+        private final int[] valueIndexes;
+        private final int unknownKeys;
+
+        private PositionalHeader(String[] keys) {
+            this.keys = keys;
+            this.valueIndexes = new int[keys.length];
+            int unknown = 0;
+            for (int i = 0; i < keys.length; i++) {
+                valueIndexes[i] = keyIndex.get(keys[i]);
+                if (valueIndexes[i] < 0) {
+                    unknown++;
+                }
+            }
+            this.unknownKeys = unknown;
+        }
+    }
+
     private static class MappingPositionData {
         /**
          * Attribute position in the output stream.
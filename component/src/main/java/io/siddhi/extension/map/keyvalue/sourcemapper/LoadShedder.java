@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an incoming key value map should be dropped before it is converted to a Siddhi event.
+ * The load signal is either the number of messages concurrently handed off by the mapper or the average time the
+ * mapper spends handing events to the stream junction. While the mapper is overloaded, maps with a priority below
+ * the configured minimum are dropped, optionally keeping a sampled fraction of them.
+ * <p>
+ * The average hand off time is halved for every {@value #DECAY_INTERVAL_MILLIS} milliseconds without a hand off, so
+ * that a mapper that sheds all messages, and hence measures no hand offs, still recovers once the stream had time to
+ * drain. Changes of the overload state are logged at most once per {@value #LOG_INTERVAL_MILLIS} milliseconds.
+ */
+class LoadShedder {
+
+    private static final Logger log = LogManager.getLogger(LoadShedder.class);
+    private static final long DECAY_INTERVAL_MILLIS = 100;
+    private static final long DECAY_INTERVAL_NANOS = DECAY_INTERVAL_MILLIS * 1_000_000L;
+    private static final long LOG_INTERVAL_MILLIS = 60_000;
+
+    private final String streamId;
+    private final boolean prioritized;
+    private final double minPriority;
+    private final double samplingRate;
+    private final int maxInFlight;
+    private final long latencyThresholdNanos;
+    private final SiddhiAppContext siddhiAppContext;
+    private final ThroughputTracker shedTracker;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shedCount = new AtomicLong();
+    private final AtomicLong lastLogTime = new AtomicLong();
+    private volatile long averageLatencyNanos = 0;
+    private volatile long lastHandOffNanos = System.nanoTime();
+    private volatile boolean overloaded = false;
+
+    LoadShedder(String streamId, boolean prioritized, double minPriority, double samplingRate, int maxInFlight,
+                long latencyThresholdMillis, SiddhiAppContext siddhiAppContext) {
+        this.streamId = streamId;
+        this.prioritized = prioritized;
+        this.minPriority = minPriority;
+        this.samplingRate = samplingRate;
+        this.maxInFlight = maxInFlight;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000L;
+        this.siddhiAppContext = siddhiAppContext;
+        this.shedTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, streamId,
+                SiddhiConstants.METRIC_INFIX_SOURCE_MAPPERS, "keyvalue.shed");
+    }
+
+    /**
+     * Registers a message entering the mapper.
+     *
+     * @return true if the mapper was already at its in-flight limit when the message arrived.
+     */
+    boolean enter() {
+        return inFlight.incrementAndGet() > maxInFlight && maxInFlight > 0;
+    }
+
+    void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records the time taken to hand a converted event to the stream, as an exponentially weighted moving average.
+     *
+     * @param latencyNanos time spent in the hand off in nanoseconds.
+     */
+    void recordHandOff(long latencyNanos) {
+        long now = System.nanoTime();
+        long average = decayedAverage(now);
+        averageLatencyNanos = average + ((latencyNanos - average) >> 3);
+        lastHandOffNanos = now;
+    }
+
+    /**
+     * @param now the current {@link System#nanoTime()}.
+     * @return the average hand off time, halved for every decay interval since the last hand off.
+     */
+    private long decayedAverage(long now) {
+        long halvings = (now - lastHandOffNanos) / DECAY_INTERVAL_NANOS;
+        return halvings <= 0 ? averageLatencyNanos : averageLatencyNanos >> Math.min(halvings, 63);
+    }
+
+    /**
+     * Checks whether a received message has to be dropped.
+     *
+     * @param priority         the priority value of the message, or null if it does not have one.
+     * @param atInFlightLimit  whether the in-flight limit was exceeded when the message arrived.
+     * @return true if the message has to be dropped without converting it.
+     */
+    boolean shouldShed(Object priority, boolean atInFlightLimit) {
+        boolean isOverloaded = atInFlightLimit ||
+                (latencyThresholdNanos > 0 && decayedAverage(System.nanoTime()) > latencyThresholdNanos);
+        if (isOverloaded != overloaded) {
+            overloaded = isOverloaded;
+            logStateChange(isOverloaded);
+        }
+        if (!isOverloaded || !isLowPriority(priority)) {
+            return false;
+        }
+        if (samplingRate > 0 && ThreadLocalRandom.current().nextDouble() < samplingRate) {
+            return false;
+        }
+        shedCount.incrementAndGet();
+        if (shedTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            shedTracker.eventIn();
+        }
+        return true;
+    }
+
+    /**
+     * Logs a change of the overload state, unless a change was logged within the log interval.
+     *
+     * @param isOverloaded the new overload state.
+     */
+    private void logStateChange(boolean isOverloaded) {
+        long now = System.currentTimeMillis();
+        long lastLog = lastLogTime.get();
+        if (now - lastLog < LOG_INTERVAL_MILLIS || !lastLogTime.compareAndSet(lastLog, now)) {
+            return;
+        }
+        if (isOverloaded) {
+            log.warn("Stream \"" + streamId + "\" is overloaded, hence keyvalue source mapper started shedding " +
+                    "low priority events. Events shed so far: " + shedCount.get());
+        } else {
+            log.info("Stream \"" + streamId + "\" recovered from overload, hence keyvalue source mapper " +
+                    "stopped shedding events. Events shed so far: " + shedCount.get());
+        }
+    }
+
+    private boolean isLowPriority(Object priority) {
+        if (!prioritized) {
+            return true;
+        }
+        if (priority instanceof Number) {
+            return ((Number) priority).doubleValue() < minPriority;
+        } else if (priority != null) {
+            try {
+                return Double.parseDouble(priority.toString()) < minPriority;
+            } catch (NumberFormatException e) {
+                return true;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves dotted key paths such as `order.px` against nested maps. The paths are compiled into a tree when the
+ * mapper is initialised, so that paths sharing a prefix share the lookups of their common parents, and `order.px`,
+ * `order.qty` and `order.side` fetch `order` only once. When a path does not resolve through nested maps, the whole
+ * path is looked up as a literal key, so that flat maps with dotted keys are still supported.
+ */
+class NestedKeyResolver {
+
+    private static final char SEPARATOR = '.';
+
+    private final Node[] roots;
+    private final String[] paths;
+    private final int[] pathIndexes;
+
+    /**
+     * @param keys the keys to resolve, where the value of each key is placed at its position in the value arrays.
+     */
+    NestedKeyResolver(String[] keys) {
+        List<Node> rootList = new ArrayList<>();
+        List<String> pathList = new ArrayList<>();
+        List<Integer> pathIndexList = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            List<Node> nodes = rootList;
+            Node node = null;
+            int start = 0;
+            while (true) {
+                int end = key.indexOf(SEPARATOR, start);
+                String segment = key.substring(start, end < 0 ? key.length() : end);
+                node = child(nodes, segment);
+                if (end < 0) {
+                    break;
+                }
+                nodes = node.childList;
+                start = end + 1;
+            }
+            node.valueIndex = i;
+            if (key.indexOf(SEPARATOR) >= 0) {
+                pathList.add(key);
+                pathIndexList.add(i);
+            }
+        }
+        this.roots = compile(rootList);
+        this.paths = pathList.toArray(new String[0]);
+        this.pathIndexes = new int[pathIndexList.size()];
+        for (int i = 0; i < pathIndexes.length; i++) {
+            pathIndexes[i] = pathIndexList.get(i);
+        }
+    }
+
+    /**
+     * @param keys the keys of the mapping.
+     * @return true if any of the keys is a dotted path.
+     */
+    static boolean hasPaths(String[] keys) {
+        for (String key : keys) {
+            if (key.indexOf(SEPARATOR) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the keys against the given map.
+     *
+     * @param keyValueEvent the received map.
+     * @param values        array to fill with the value of each key, or null if the key cannot be resolved.
+     */
+    void resolve(Map<String, Object> keyValueEvent, Object[] values) {
+        Arrays.fill(values, null);
+        resolve(roots, keyValueEvent, values);
+        for (int i = 0; i < paths.length; i++) {
+            if (values[pathIndexes[i]] == null) {
+                values[pathIndexes[i]] = keyValueEvent.get(paths[i]);
+            }
+        }
+    }
+
+    private static void resolve(Node[] nodes, Map<?, ?> map, Object[] values) {
+        for (Node node : nodes) {
+            Object value = map.get(node.key);
+            if (node.valueIndex >= 0) {
+                values[node.valueIndex] = value;
+            }
+            if (node.children.length > 0 && value instanceof Map) {
+                resolve(node.children, (Map<?, ?>) value, values);
+            }
+        }
+    }
+
+    private static Node child(List<Node> nodes, String key) {
+        for (Node node : nodes) {
+            if (node.key.equals(key)) {
+                return node;
+            }
+        }
+        Node node = new Node(key);
+        nodes.add(node);
+        return node;
+    }
+
+    private static Node[] compile(List<Node> nodes) {
+        for (Node node : nodes) {
+            node.children = compile(node.childList);
+            node.childList = null;
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+    /**
+     * Segment of one or more key paths.
+     */
+    private static class Node {
+        private final String key;
+        private int valueIndex = -1;
+        private List<Node> childList = new ArrayList<>();
+        private Node[] children;
+
+        private Node(String key) {
+            this.key = key;
+        }
+    }
+}
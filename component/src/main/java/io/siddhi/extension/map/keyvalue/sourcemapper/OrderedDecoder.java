@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.core.util.error.handler.model.ErroneousEvent;
+import io.siddhi.core.util.extension.holder.ExternalReferencedHolder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes messages in parallel, off the transport thread that received them, and hands the decoded events off in the
+ * order the messages were submitted. Messages are decoded on virtual threads when the JVM supports them, and on a
+ * fixed pool of as many platform threads as the number of messages that can be in flight otherwise. The number of
+ * messages that are being decoded or wait for earlier messages to be handed off is bounded, and submitting a message
+ * blocks while the bound is reached. The decoder is registered with the Siddhi app, which stops its threads when the
+ * app shuts down.
+ * <p>
+ * Decoding steps that depend on earlier messages, such as reading the entries of a dictionary, are run in submission
+ * order by waiting for the {@link Turn} of the message. A message that waits for its turn decodes the earlier messages
+ * that have not started yet on its own thread, so that waiting never depends on a free thread.
+ * <p>
+ * Messages and records that cannot be mapped are collected while decoding, and handed off together with the events
+ * of the message, so that the mapper can report them as it does for messages decoded on the transport thread.
+ */
+class OrderedDecoder implements ExternalReferencedHolder {
+
+    private static final Logger log = LogManager.getLogger(OrderedDecoder.class);
+    private static final Event[] NO_EVENTS = new Event[0];
+
+    /**
+     * Turn of a message that is decoded on the thread that received it, which is always its turn.
+     */
+    static final Turn SYNCHRONOUS = new Turn() {
+        @Override
+        public void await() {
+        }
+
+        @Override
+        public void pass() {
+        }
+    };
+
+    private final String streamId;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private volatile ExecutorService executor;
+    private final ArrayDeque<Task> pending = new ArrayDeque<>();
+    private boolean handingOff = false;
+
+    /**
+     * @param streamId    id of the stream the mapper belongs to.
+     * @param maxInFlight maximum number of messages that are decoded or wait to be handed off, which is also the
+     *                    number of platform threads that decode them when virtual threads are not supported.
+     */
+    OrderedDecoder(String streamId, int maxInFlight) {
+        this.streamId = streamId;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = createExecutor();
+    }
+
+    private ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxInFlight, runnable -> {
+                Thread thread = new Thread(runnable, "keyvalue-decoder-" + streamId + "-" +
+                        threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Creates the threads of the decoder again if the decoder was stopped.
+     */
+    @Override
+    public synchronized void start() {
+        if (executor.isShutdown()) {
+            executor = createExecutor();
+        }
+    }
+
+    /**
+     * Stops the threads of the decoder once the messages already submitted are decoded and handed off.
+     */
+    @Override
+    public synchronized void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Submits a message to be decoded, blocking while the maximum number of messages are in flight.
+     *
+     * @param decoding           decodes the message into events.
+     * @param handOff            hands the decoded events and failures off, called in submission order by one thread
+     *                           at a time.
+     * @param onSubmittingThread whether to decode the message on the submitting thread before returning, for
+     *                           messages that the transport may reuse once they are mapped. The events are still
+     *                           handed off after those of the messages submitted earlier.
+     */
+    void submit(Decoding decoding, HandOff handOff, boolean onSubmittingThread) throws InterruptedException {
+        inFlight.acquire();
+        Task task = new Task(decoding, handOff);
+        synchronized (pending) {
+            pending.add(task);
+        }
+        if (onSubmittingThread) {
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The decoder is stopped, hence the message is decoded on the submitting thread
+            task.run();
+        }
+    }
+
+    /**
+     * Hands off the events of the decoded messages at the head of the pending messages, unless another thread is
+     * already doing so, in which case that thread hands them off.
+     */
+    private void handOffDecoded() {
+        while (true) {
+            Task head;
+            synchronized (pending) {
+                head = pending.peek();
+                if (handingOff || head == null || !head.decoded) {
+                    return;
+                }
+                handingOff = true;
+                pending.poll();
+            }
+            try {
+                if (head.events.length > 0 || !head.failedEvents.isEmpty()) {
+                    head.handOff.handOff(head.events, head.failedEvents);
+                }
+            } catch (InterruptedException e) {
+                log.error("Interrupted while handing off decoded events to stream \"" + streamId + "\", hence " +
+                        "dropping them.", e);
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error while handing off decoded events to stream \"" + streamId + "\".", e);
+            } finally {
+                inFlight.release();
+                synchronized (pending) {
+                    handingOff = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes a message into events.
+     */
+    interface Decoding {
+
+        /**
+         * @param turn         turn of the message, which has to be awaited before decoding steps that depend on
+         *                     earlier messages, and passed once such steps are done.
+         * @param failedEvents list to which the message, or its records, that cannot be mapped are added.
+         * @return the decoded events.
+         */
+        Event[] decode(Turn turn, List<ErroneousEvent> failedEvents) throws InterruptedException;
+    }
+
+    /**
+     * Hands decoded events off to the stream, and reports the failures of the message.
+     */
+    interface HandOff {
+
+        void handOff(Event[] events, List<ErroneousEvent> failedEvents) throws InterruptedException;
+    }
+
+    /**
+     * Turn of a message to run the decoding steps that depend on earlier messages. It is the turn of a message once
+     * all earlier messages have passed their turn, which they do at the latest when they are decoded.
+     */
+    interface Turn {
+
+        void await() throws InterruptedException;
+
+        void pass();
+    }
+
+    private class Task implements Runnable, Turn {
+
+        private final Decoding decoding;
+        private final HandOff handOff;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final List<ErroneousEvent> failedEvents = new ArrayList<>(0);
+        private boolean passed = false;
+        private boolean decoded = false;
+        private Event[] events;
+
+        private Task(Decoding decoding, HandOff handOff) {
+            this.decoding = decoding;
+            this.handOff = handOff;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            Event[] result = NO_EVENTS;
+            try {
+                result = decoding.decode(this, failedEvents);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error while decoding a message of stream \"" + streamId + "\", hence dropping it.", e);
+            } finally {
+                synchronized (pending) {
+                    events = result;
+                    decoded = true;
+                    passed = true;
+                    pending.notifyAll();
+                }
+                handOffDecoded();
+            }
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            while (true) {
+                Task earlier = null;
+                synchronized (pending) {
+                    boolean turn = true;
+                    for (Task task : pending) {
+                        if (task == this) {
+                            break;
+                        } else if (!task.passed) {
+                            turn = false;
+                            if (!task.started.get()) {
+                                earlier = task;
+                                break;
+                            }
+                        }
+                    }
+                    if (turn) {
+                        return;
+                    } else if (earlier == null) {
+                        pending.wait();
+                    }
+                }
+                if (earlier != null) {
+                    earlier.run();
+                }
+            }
+        }
+
+        @Override
+        public void pass() {
+            synchronized (pending) {
+                if (!passed) {
+                    passed = true;
+                    pending.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.extension.map.keyvalue.util.KeyIndex;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses text key value messages such as `symbol=WSO2;price=55.6;volume=100` in a single scan, without building an
+ * intermediate map. Keys are matched against the precompiled {@link KeyIndex} of the mapper, and values of matching
+ * keys are parsed straight from the character range into the type of the attribute they are mapped to. A backslash
+ * escapes the character that follows it, so that delimiters can appear within keys and values. Unescaped whitespace
+ * around keys and values is ignored.
+ */
+class TextKeyValueParser {
+
+    private static final char ESCAPE = '\\';
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f,
+            1e10f};
+    private static final long MAX_EXACT_DOUBLE_SIGNIFICAND = 1L << 53;
+    private static final long MAX_EXACT_FLOAT_SIGNIFICAND = 1L << 24;
+
+    private final KeyIndex keyIndex;
+    private final Attribute.Type[] valueTypes;
+    private final char pairDelimiter;
+    private final char keyValueDelimiter;
+
+    /**
+     * @param keyIndex          index from keys to positions in the value arrays.
+     * @param valueTypes        type to parse the value at each position into, or null to keep it as a string.
+     * @param pairDelimiter     character separating key value pairs.
+     * @param keyValueDelimiter character separating a key from its value.
+     */
+    TextKeyValueParser(KeyIndex keyIndex, Attribute.Type[] valueTypes, char pairDelimiter,
+                       char keyValueDelimiter) {
+        this.keyIndex = keyIndex;
+        this.valueTypes = valueTypes;
+        this.pairDelimiter = pairDelimiter;
+        this.keyValueDelimiter = keyValueDelimiter;
+    }
+
+    /**
+     * Parses a text message.
+     *
+     * @param text   the message.
+     * @param values array to fill with the values of indexed keys, values of absent keys are set to null.
+     * @return the number of keys of the message that are not indexed.
+     */
+    int parse(CharSequence text, Object[] values) {
+        return parse(text, 0, text.length(), values);
+    }
+
+    /**
+     * Parses a UTF-8 encoded text message.
+     *
+     * @param bytes  array holding the message.
+     * @param offset offset of the first byte of the message.
+     * @param length length of the message in bytes.
+     * @param values array to fill with the values of indexed keys, values of absent keys are set to null.
+     * @return the number of keys of the message that are not indexed.
+     */
+    int parse(byte[] bytes, int offset, int length, Object[] values) {
+        return parse(new Utf8Chars(bytes), offset, offset + length, values);
+    }
+
+    private int parse(CharSequence text, int start, int end, Object[] values) {
+        Arrays.fill(values, null);
+        int unknownKeys = 0;
+        int i = start;
+        while (i < end) {
+            int keyStart = i;
+            boolean keyEscaped = false;
+            char c = 0;
+            while (i < end) {
+                c = text.charAt(i);
+                if (c == ESCAPE) {
+                    keyEscaped = true;
+                    i += 2;
+                } else if (c == keyValueDelimiter || c == pairDelimiter) {
+                    break;
+                } else {
+                    i++;
+                }
+            }
+            int keyEnd = Math.min(i, end);
+            while (keyStart < keyEnd && Character.isWhitespace(text.charAt(keyStart))) {
+                keyStart++;
+            }
+            while (keyEnd > keyStart && Character.isWhitespace(text.charAt(keyEnd - 1)) &&
+                    !isEscaped(text, keyStart, keyEnd - 1)) {
+                keyEnd--;
+            }
+            if (i >= end || c == pairDelimiter) {
+                if (keyStart == keyEnd) {
+                    i++;
+                    continue;
+                }
+                throw new IllegalArgumentException("Key value pair '" + text.subSequence(keyStart, keyEnd) +
+                        "' does not have a '" + keyValueDelimiter + "' delimiter");
+            }
+            i++;
+            int valueStart = i;
+            boolean valueEscaped = false;
+            while (i < end) {
+                c = text.charAt(i);
+                if (c == ESCAPE) {
+                    valueEscaped = true;
+                    i += 2;
+                } else if (c == pairDelimiter) {
+                    break;
+                } else {
+                    i++;
+                }
+            }
+            int valueEnd = Math.min(i, end);
+            i++;
+            while (valueStart < valueEnd && Character.isWhitespace(text.charAt(valueStart))) {
+                valueStart++;
+            }
+            while (valueEnd > valueStart && Character.isWhitespace(text.charAt(valueEnd - 1)) &&
+                    !isEscaped(text, valueStart, valueEnd - 1)) {
+                valueEnd--;
+            }
+            int index = keyEscaped ? keyIndex.get(unescape(text, keyStart, keyEnd)) : lookup(text, keyStart, keyEnd);
+            if (index < 0) {
+                unknownKeys++;
+                continue;
+            } else if (valueStart == valueEnd) {
+                continue;
+            }
+            if (valueEscaped) {
+                String value = unescape(text, valueStart, valueEnd);
+                values[index] = parseValue(value, 0, value.length(), valueTypes[index]);
+            } else {
+                values[index] = parseValue(text, valueStart, valueEnd, valueTypes[index]);
+            }
+        }
+        return unknownKeys;
+    }
+
+    /**
+     * Checks whether the character at the given index is escaped, by counting the backslashes preceding it.
+     */
+    private static boolean isEscaped(CharSequence text, int start, int index) {
+        int escapes = 0;
+        while (index - escapes > start && text.charAt(index - escapes - 1) == ESCAPE) {
+            escapes++;
+        }
+        return (escapes & 1) == 1;
+    }
+
+    private int lookup(CharSequence text, int start, int end) {
+        if (text instanceof Utf8Chars) {
+            return keyIndex.get(((Utf8Chars) text).bytes, start, end - start);
+        }
+        return keyIndex.get(text, start, end);
+    }
+
+    private static Object parseValue(CharSequence text, int start, int end, Attribute.Type type) {
+        if (type != null) {
+            try {
+                switch (type) {
+                    case INT:
+                        long intValue = parseLong(text, start, end);
+                        if (intValue == (int) intValue) {
+                            return (int) intValue;
+                        }
+                        break;
+                    case LONG:
+                        return parseLong(text, start, end);
+                    case DOUBLE:
+                        return parseDouble(text, start, end);
+                    case FLOAT:
+                        return parseFloat(text, start, end);
+                    case BOOL:
+                        if (regionMatches(text, start, end, "true")) {
+                            return Boolean.TRUE;
+                        } else if (regionMatches(text, start, end, "false")) {
+                            return Boolean.FALSE;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                // Fall back to the text value, so that the mapper reports the incompatible value.
+            }
+        }
+        return toString(text, start, end);
+    }
+
+    private static String toString(CharSequence text, int start, int end) {
+        if (text instanceof Utf8Chars) {
+            return new String(((Utf8Chars) text).bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    private static String unescape(CharSequence text, int start, int end) {
+        String escaped = toString(text, start, end);
+        StringBuilder builder = new StringBuilder(escaped.length());
+        for (int i = 0; i < escaped.length(); i++) {
+            char c = escaped.charAt(i);
+            if (c == ESCAPE && i + 1 < escaped.length()) {
+                c = escaped.charAt(++i);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long parseLong(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 19) {
+            return Long.parseLong(toString(text, start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + toString(text, start, end) + "\"");
+            }
+            value = value * 10 - digit;
+            if (value > 0) {
+                return Long.parseLong(toString(text, start, end));
+            }
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                return Long.parseLong(toString(text, start, end));
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (significand == 0 && c == '0') {
+                    if (seenPoint) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (++digits > 18) {
+                    return Double.parseDouble(toString(text, start, end));
+                }
+                significand = significand * 10 + (c - '0');
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return Double.parseDouble(toString(text, start, end));
+        }
+        if (i < end) {
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E' || i + 1 == end) {
+                return Double.parseDouble(toString(text, start, end));
+            }
+            try {
+                exponent = Math.addExact(exponent, (int) parseLong(text, i + 1, end));
+            } catch (ArithmeticException | NumberFormatException e) {
+                return Double.parseDouble(toString(text, start, end));
+            }
+        }
+        if (significand == 0) {
+            return negative ? -0.0d : 0.0d;
+        }
+        if (significand > MAX_EXACT_DOUBLE_SIGNIFICAND || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(toString(text, start, end));
+        }
+        double value = exponent < 0 ? significand / DOUBLE_POWERS_OF_TEN[-exponent] :
+                significand * DOUBLE_POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    static float parseFloat(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long significand = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                significand = significand * 10 + (c - '0');
+                if (seenPoint) {
+                    exponent--;
+                }
+                if (significand > MAX_EXACT_FLOAT_SIGNIFICAND) {
+                    return Float.parseFloat(toString(text, start, end));
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return Float.parseFloat(toString(text, start, end));
+            }
+        }
+        if (!seenDigit || exponent < -10) {
+            return Float.parseFloat(toString(text, start, end));
+        }
+        if (significand == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+        float value = significand / FLOAT_POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Character view over UTF-8 encoded bytes, used to scan for the ASCII delimiters and digits without decoding.
+     */
+    private static class Utf8Chars implements CharSequence {
+        private final byte[] bytes;
+
+        private Utf8Chars(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
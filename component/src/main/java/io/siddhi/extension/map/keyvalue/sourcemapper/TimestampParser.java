@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * Parses date time text of an attribute into epoch milliseconds, following the format configured for the
+ * attribute. The format is compiled once, and a parser can be shared between threads. The {@value #ISO_8601}
+ * format is parsed by hand in a single scan without allocating, and accepts dates such as {@code 2026-10-19},
+ * optionally followed by a {@code T} or a space and a time such as {@code 10:15}, {@code 10:15:30} or
+ * {@code 10:15:30.123}, and an offset such as {@code Z}, {@code +05:30}, {@code +0530} or {@code +05}. Other
+ * formats are {@link DateTimeFormatter} patterns. Date times without an offset are taken to be in UTC.
+ */
+class TimestampParser {
+
+    static final String ISO_8601 = "ISO_8601";
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int[] MILLIS_SCALE = {100, 10, 1};
+
+    private final String format;
+    private final DateTimeFormatter formatter;
+
+    /**
+     * @param format {@value #ISO_8601}, or a {@link DateTimeFormatter} pattern.
+     * @throws IllegalArgumentException if the pattern is not valid.
+     */
+    TimestampParser(String format) {
+        this.format = format;
+        this.formatter = ISO_8601.equalsIgnoreCase(format) ? null :
+                DateTimeFormatter.ofPattern(format, Locale.ROOT).withZone(ZoneOffset.UTC);
+    }
+
+    String getFormat() {
+        return format;
+    }
+
+    /**
+     * @param text the date time text.
+     * @return the epoch milliseconds of the date time.
+     * @throws DateTimeException if the text does not match the format.
+     */
+    long parse(CharSequence text) {
+        if (formatter == null) {
+            return parseIso(text);
+        }
+        return toEpochMillis(formatter.parse(text));
+    }
+
+    /**
+     * @param temporal a date, or a date time with or without an offset or a zone.
+     * @return the epoch milliseconds of the temporal, where a date is taken at the start of its day.
+     * @throws DateTimeException if the temporal is not a date.
+     */
+    static long toEpochMillis(TemporalAccessor temporal) {
+        if (temporal instanceof Instant) {
+            return ((Instant) temporal).toEpochMilli();
+        } else if (temporal instanceof LocalDateTime) {
+            return ((LocalDateTime) temporal).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } else if (temporal.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return Math.addExact(Math.multiplyExact(temporal.getLong(ChronoField.INSTANT_SECONDS), 1000L),
+                    temporal.getLong(ChronoField.MILLI_OF_SECOND));
+        }
+        return Math.multiplyExact(LocalDate.from(temporal).toEpochDay(), MILLIS_PER_DAY);
+    }
+
+    private static long parseIso(CharSequence text) {
+        int length = text.length();
+        if (length < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            throw invalid(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw invalid(text);
+        }
+        long millis = epochDay(year, month, day) * MILLIS_PER_DAY;
+        if (length == 10) {
+            return millis;
+        }
+        char separator = text.charAt(10);
+        if ((separator != 'T' && separator != 't' && separator != ' ') || length < 16 || text.charAt(13) != ':') {
+            throw invalid(text);
+        }
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = 0;
+        int milli = 0;
+        int position = 16;
+        if (position < length && text.charAt(position) == ':') {
+            second = digits(text, position + 1, 2);
+            position += 3;
+            if (position < length && (text.charAt(position) == '.' || text.charAt(position) == ',')) {
+                int start = ++position;
+                while (position < length && isDigit(text.charAt(position))) {
+                    if (position - start < 3) {
+                        milli += (text.charAt(position) - '0') * MILLIS_SCALE[position - start];
+                    }
+                    position++;
+                }
+                if (position == start || position - start > 9) {
+                    throw invalid(text);
+                }
+            }
+        }
+        if (hour > 23 || minute > 59 || second > 59) {
+            throw invalid(text);
+        }
+        int offsetSeconds = 0;
+        if (position < length) {
+            char sign = text.charAt(position);
+            if ((sign == 'Z' || sign == 'z') && position + 1 == length) {
+                position++;
+            } else if (sign == '+' || sign == '-') {
+                int offsetHours = digits(text, position + 1, 2);
+                int offsetMinutes = 0;
+                position += 3;
+                if (position < length && text.charAt(position) == ':') {
+                    position++;
+                }
+                if (position < length) {
+                    offsetMinutes = digits(text, position, 2);
+                    position += 2;
+                }
+                if (offsetHours > 18 || offsetMinutes > 59) {
+                    throw invalid(text);
+                }
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (sign == '-' ? -1 : 1);
+            }
+            if (position != length) {
+                throw invalid(text);
+            }
+        }
+        return millis + (hour * 3600L + minute * 60L + second - offsetSeconds) * 1000L + milli;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        if (start + count > text.length()) {
+            throw invalid(text);
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                throw invalid(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return the number of days from 1970-01-01 to the given date of the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static DateTimeException invalid(CharSequence text) {
+        return new DateTimeException("Text '" + text + "' is not an " + ISO_8601 + " date time");
+    }
+}
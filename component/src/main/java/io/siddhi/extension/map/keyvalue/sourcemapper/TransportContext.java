@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.core.stream.input.source.SourceMapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Transport context of the messages of a source mapper, that is the transport properties and transport sync
+ * properties that {@link SourceMapper} keeps in thread locals while a message is mapped on the thread that received
+ * it, and that the input event handler reads when the events of the message are sent. The context is captured on
+ * the receiving thread, and restored on another thread by passing the decoded message to the mapper again through
+ * {@code onEvent}, so that the events are sent, and the failures are reported, as those of a message mapped on the
+ * receiving thread.
+ */
+class TransportContext {
+
+    private final SourceMapper sourceMapper;
+    private final ThreadLocal<?> transportProperties;
+    private final ThreadLocal<?> transportSyncProperties;
+    private final Method onEvent;
+
+    private TransportContext(SourceMapper sourceMapper, ThreadLocal<?> transportProperties,
+                             ThreadLocal<?> transportSyncProperties, Method onEvent) {
+        this.sourceMapper = sourceMapper;
+        this.transportProperties = transportProperties;
+        this.transportSyncProperties = transportSyncProperties;
+        this.onEvent = onEvent;
+    }
+
+    /**
+     * @param sourceMapper the source mapper.
+     * @return the transport context of the mapper, or null if the Siddhi version does not keep the transport
+     * properties where they are looked up.
+     */
+    static TransportContext of(SourceMapper sourceMapper) {
+        try {
+            Method onEvent = null;
+            for (Method method : SourceMapper.class.getMethods()) {
+                if (method.getName().equals("onEvent") && method.getParameterCount() == 3) {
+                    onEvent = method;
+                }
+            }
+            if (onEvent == null) {
+                return null;
+            }
+            return new TransportContext(sourceMapper, threadLocal(sourceMapper, "trpProperties"),
+                    threadLocal(sourceMapper, "trpSyncProperties"), onEvent);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadLocal<?> threadLocal(SourceMapper sourceMapper, String name)
+            throws ReflectiveOperationException {
+        Field field = SourceMapper.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (ThreadLocal<?>) field.get(sourceMapper);
+    }
+
+    /**
+     * @return the transport properties and transport sync properties of the message being mapped on the current
+     * thread.
+     */
+    Object[] capture() {
+        return new Object[]{transportProperties.get(), transportSyncProperties.get()};
+    }
+
+    /**
+     * Maps a message on the current thread with a captured transport context.
+     *
+     * @param message the message.
+     * @param context the context, as returned by {@link #capture()} on the thread that received the message.
+     */
+    void onEvent(Object message, Object[] context) {
+        try {
+            onEvent.invoke(sourceMapper, message, context[0], context[1]);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot map the message " + message, e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Cannot map the message " + message, cause);
+        }
+    }
+}
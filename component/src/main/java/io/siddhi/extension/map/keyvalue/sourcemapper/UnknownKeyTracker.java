@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import io.siddhi.extension.map.keyvalue.util.KeyIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects keys of received messages that the mapper does not expect. The expected keys are held in a
+ * {@link KeyIndex}, so that checking a key costs one hash computation and at most one key comparison. Unknown keys
+ * are counted and reported as a metric, while the log is only written at most once per interval, so that a producer
+ * sending unexpected keys with every message does not flood it.
+ */
+class UnknownKeyTracker {
+
+    private static final Logger log = LogManager.getLogger(UnknownKeyTracker.class);
+    private static final long LOG_INTERVAL_MILLIS = 60_000;
+
+    private final String streamId;
+    private final KeyIndex knownKeys;
+    private final SiddhiAppContext siddhiAppContext;
+    private final ThroughputTracker unknownKeyTracker;
+
+    private final AtomicLong unknownKeyCount = new AtomicLong();
+    private final AtomicLong lastLogTime = new AtomicLong();
+
+    /**
+     * @param streamId         id of the stream the mapper belongs to.
+     * @param knownKeys        index of the keys that are expected at the top level of key value maps.
+     * @param siddhiAppContext context of the Siddhi app, used to report the metric.
+     */
+    UnknownKeyTracker(String streamId, KeyIndex knownKeys, SiddhiAppContext siddhiAppContext) {
+        this.streamId = streamId;
+        this.knownKeys = knownKeys;
+        this.siddhiAppContext = siddhiAppContext;
+        this.unknownKeyTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, streamId,
+                SiddhiConstants.METRIC_INFIX_SOURCE_MAPPERS, "keyvalue.unknown.keys");
+    }
+
+    /**
+     * Checks each key of a key value map once, and records the keys that are not expected.
+     *
+     * @param keyValueEvent the received map.
+     * @return the first unknown key of the map, or null if all keys are expected.
+     */
+    String check(Map<String, Object> keyValueEvent) {
+        String unknownKey = null;
+        int count = 0;
+        for (String key : keyValueEvent.keySet()) {
+            if (key == null || knownKeys.get(key) < 0) {
+                if (count++ == 0) {
+                    unknownKey = String.valueOf(key);
+                }
+            }
+        }
+        if (count > 0) {
+            record(count, unknownKey);
+        }
+        return unknownKey;
+    }
+
+    /**
+     * Counts the entries of a key index that were not found, as given for the key headers of binary frames.
+     *
+     * @param keyIndexes the index of each key of the frame, which is negative for keys that are not expected.
+     * @return the number of unknown keys.
+     */
+    int check(int[] keyIndexes) {
+        int count = 0;
+        for (int keyIndex : keyIndexes) {
+            if (keyIndex < 0) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            record(count, null);
+        }
+        return count;
+    }
+
+    /**
+     * Records unknown keys of a message.
+     *
+     * @param count the number of unknown keys of the message.
+     * @param key   one of the unknown keys, or null if it is not known.
+     */
+    void record(int count, String key) {
+        long total = unknownKeyCount.addAndGet(count);
+        if (unknownKeyTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            unknownKeyTracker.eventsIn(count);
+        }
+        long now = System.currentTimeMillis();
+        long lastLog = lastLogTime.get();
+        if (now - lastLog >= LOG_INTERVAL_MILLIS && lastLogTime.compareAndSet(lastLog, now)) {
+            log.warn("Stream \"" + streamId + "\" received " + count + " unknown key(s)" +
+                    (key == null ? "" : " such as '" + key + "'") + " in a message of the keyvalue source mapper. " +
+                    "Unknown keys received so far: " + total);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link KeyValueRecord} over a fixed set of keys, holding integral and boolean values in a {@code long} array,
+ * floating point values in a {@code double} array, and other values in an object array. A record is meant to be
+ * reused: {@link #clear()} it, set the values of the next message, and hand it to the mapper, which does not keep
+ * a reference to it once the message is mapped. Keys are looked up through a {@link KeyIndex}. A record is not
+ * thread safe.
+ */
+public class ArrayKeyValueRecord implements KeyValueRecord {
+
+    private final String[] keys;
+    private final KeyIndex keyIndex;
+    private final Attribute.Type[] types;
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final Object[] objectValues;
+
+    /**
+     * @param keys the keys the record can hold values for, which should be unique.
+     */
+    public ArrayKeyValueRecord(String... keys) {
+        this.keys = keys.clone();
+        this.keyIndex = new KeyIndex(this.keys);
+        this.types = new Attribute.Type[keys.length];
+        this.longValues = new long[keys.length];
+        this.doubleValues = new double[keys.length];
+        this.objectValues = new Object[keys.length];
+    }
+
+    /**
+     * Removes all the values, keeping the keys.
+     */
+    public void clear() {
+        Arrays.fill(types, null);
+        Arrays.fill(objectValues, null);
+    }
+
+    public ArrayKeyValueRecord setInt(String key, int value) {
+        int index = indexOf(key);
+        types[index] = Attribute.Type.INT;
+        longValues[index] = value;
+        return this;
+    }
+
+    public ArrayKeyValueRecord setLong(String key, long value) {
+        int index = indexOf(key);
+        types[index] = Attribute.Type.LONG;
+        longValues[index] = value;
+        return this;
+    }
+
+    public ArrayKeyValueRecord setFloat(String key, float value) {
+        int index = indexOf(key);
+        types[index] = Attribute.Type.FLOAT;
+        doubleValues[index] = value;
+        return this;
+    }
+
+    public ArrayKeyValueRecord setDouble(String key, double value) {
+        int index = indexOf(key);
+        types[index] = Attribute.Type.DOUBLE;
+        doubleValues[index] = value;
+        return this;
+    }
+
+    public ArrayKeyValueRecord setBoolean(String key, boolean value) {
+        int index = indexOf(key);
+        types[index] = Attribute.Type.BOOL;
+        longValues[index] = value ? 1 : 0;
+        return this;
+    }
+
+    public ArrayKeyValueRecord setString(String key, String value) {
+        return setObject(key, value, Attribute.Type.STRING);
+    }
+
+    /**
+     * Sets a value of any type, unboxing boxed primitives into their typed slots.
+     *
+     * @param key   the key.
+     * @param value the value, or null to remove the value of the key.
+     * @return this record.
+     */
+    public ArrayKeyValueRecord set(String key, Object value) {
+        if (value instanceof Integer) {
+            return setInt(key, (Integer) value);
+        } else if (value instanceof Long) {
+            return setLong(key, (Long) value);
+        } else if (value instanceof Float) {
+            return setFloat(key, (Float) value);
+        } else if (value instanceof Double) {
+            return setDouble(key, (Double) value);
+        } else if (value instanceof Boolean) {
+            return setBoolean(key, (Boolean) value);
+        } else if (value instanceof String) {
+            return setString(key, (String) value);
+        }
+        return setObject(key, value, Attribute.Type.OBJECT);
+    }
+
+    @Override
+    public boolean has(String key) {
+        int index = keyIndex.get(key);
+        return index >= 0 && types[index] != null;
+    }
+
+    @Override
+    public Attribute.Type getType(String key) {
+        int index = keyIndex.get(key);
+        return index < 0 ? null : types[index];
+    }
+
+    @Override
+    public int getInt(String key) {
+        return (int) longValues[indexOf(key, Attribute.Type.INT)];
+    }
+
+    @Override
+    public long getLong(String key) {
+        return longValues[indexOf(key, Attribute.Type.LONG)];
+    }
+
+    @Override
+    public float getFloat(String key) {
+        return (float) doubleValues[indexOf(key, Attribute.Type.FLOAT)];
+    }
+
+    @Override
+    public double getDouble(String key) {
+        return doubleValues[indexOf(key, Attribute.Type.DOUBLE)];
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return longValues[indexOf(key, Attribute.Type.BOOL)] != 0;
+    }
+
+    @Override
+    public String getString(String key) {
+        return (String) objectValues[indexOf(key, Attribute.Type.STRING)];
+    }
+
+    @Override
+    public Object get(String key) {
+        int index = keyIndex.get(key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (types[i] != null) {
+                map.put(keys[i], valueAt(i));
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private ArrayKeyValueRecord setObject(String key, Object value, Attribute.Type type) {
+        int index = indexOf(key);
+        types[index] = value == null ? null : type;
+        objectValues[index] = value;
+        return this;
+    }
+
+    private Object valueAt(int index) {
+        Attribute.Type type = types[index];
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case INT:
+                return (int) longValues[index];
+            case LONG:
+                return longValues[index];
+            case FLOAT:
+                return (float) doubleValues[index];
+            case DOUBLE:
+                return doubleValues[index];
+            case BOOL:
+                return longValues[index] != 0;
+            default:
+                return objectValues[index];
+        }
+    }
+
+    private int indexOf(String key) {
+        int index = keyIndex.get(key);
+        if (index < 0) {
+            throw new IllegalArgumentException("The key '" + key + "' is not one of the keys " +
+                    Arrays.toString(keys) + " of the record.");
+        }
+        return index;
+    }
+
+    private int indexOf(String key, Attribute.Type type) {
+        int index = indexOf(key);
+        if (types[index] != type) {
+            throw new IllegalStateException("The key '" + key + "' holds a value of type " + types[index] +
+                    ", not " + type + ".");
+        }
+        return index;
+    }
+}
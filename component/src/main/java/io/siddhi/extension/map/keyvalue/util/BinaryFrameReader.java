@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads key value records from frames written by {@link BinaryFrameWriter}. Fields are matched against a
+ * precompiled {@link KeyIndex}, and only the values of matching fields are decoded, all other fields are skipped.
+ * Reads never change the position or limit of the given buffer, hence a reader can be shared between threads.
+ * Both heap and direct buffers are read in place using absolute reads, and only the string values of matching
+ * fields are materialised. The arrays that strings of direct buffers are copied into are pooled between all
+ * threads, rather than held per thread, so that decoding on short lived threads does not allocate one each time.
+ * <p>
+ * The entries of the {@link StringDictionary} dictionaries that frames are written with are cached by the reader,
+ * so that each entry is decoded once and dictionary encoded values resolve to the same {@code String} instance.
+ * The entries of the most recently used dictionaries are retained, and entries beyond the maximum dictionary size of
+ * the reader are rejected as malformed.
+ * <p>
+ * Similarly, the reader caches a plan per schema of the schema frames it reads, mapping the position of each key of
+ * the schema to the index of the key, so that the records of schema frames are decoded by position.
+ */
+public class BinaryFrameReader {
+
+    private static final BlockingQueue<byte[]> SCRATCH =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private static final int MIN_SCRATCH_SIZE = 256;
+    private static final int MAX_RETAINED_SCRATCH_SIZE = 64 * 1024;
+    private static final int MAX_CACHED_DICTIONARIES = 16;
+    private static final int MAX_CACHED_PLANS = 16;
+    private static final int DICTIONARY_HEADER_SIZE = 20;
+    private static final int MIN_RECORD_SIZE = 6;
+
+    private final KeyIndex keyIndex;
+    private final ClassAllowList classAllowList;
+    private final int maxDictionarySize;
+    private final Map<Long, int[]> plans = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+    private final Map<Long, String[]> dictionaries = new LinkedHashMap<Long, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+            return size() > MAX_CACHED_DICTIONARIES;
+        }
+    };
+
+    /**
+     * @param keyIndex index from the keys of interest to their position in the value arrays filled by this reader.
+     */
+    public BinaryFrameReader(KeyIndex keyIndex) {
+        this(keyIndex, new ClassAllowList());
+    }
+
+    /**
+     * @param keyIndex       index from the keys of interest to their position in the value arrays filled by this
+     *                       reader.
+     * @param classAllowList classes that object values are allowed to instantiate.
+     */
+    public BinaryFrameReader(KeyIndex keyIndex, ClassAllowList classAllowList) {
+        this(keyIndex, classAllowList, StringDictionary.MAX_SIZE_LIMIT);
+    }
+
+    /**
+     * @param keyIndex          index from the keys of interest to their position in the value arrays filled by this
+     *                          reader.
+     * @param classAllowList    classes that object values are allowed to instantiate.
+     * @param maxDictionarySize maximum number of entries of each cached dictionary, at most
+     *                          {@link StringDictionary#MAX_SIZE_LIMIT}.
+     */
+    public BinaryFrameReader(KeyIndex keyIndex, ClassAllowList classAllowList, int maxDictionarySize) {
+        if (maxDictionarySize <= 0 || maxDictionarySize > StringDictionary.MAX_SIZE_LIMIT) {
+            throw new IllegalArgumentException("Maximum dictionary size should be between 1 and " +
+                    StringDictionary.MAX_SIZE_LIMIT + ", but found " + maxDictionarySize);
+        }
+        this.keyIndex = keyIndex;
+        this.classAllowList = classAllowList;
+        this.maxDictionarySize = maxDictionarySize;
+    }
+
+    /**
+     * Checks whether the remaining bytes of the buffer start with a binary frame header.
+     *
+     * @param buffer the payload.
+     * @return true if the payload is a binary key value frame.
+     */
+    public static boolean isFrame(ByteBuffer buffer) {
+        int offset = buffer.position();
+        return buffer.remaining() >= BinaryFrameWriter.HEADER_SIZE &&
+                buffer.get(offset) == BinaryFrameWriter.MAGIC[0] &&
+                buffer.get(offset + 1) == BinaryFrameWriter.MAGIC[1] &&
+                buffer.get(offset + 2) == BinaryFrameWriter.MAGIC[2];
+    }
+
+    /**
+     * Validates the frame header and returns the number of records in the frame.
+     *
+     * @param frame buffer positioned at the start of the frame.
+     * @return number of records in the frame.
+     */
+    public static int getRecordCount(ByteBuffer frame) {
+        int offset = frame.position();
+        byte version = frame.get(offset + 3);
+        if (version != BinaryFrameWriter.VERSION && version != BinaryFrameWriter.DICTIONARY_VERSION) {
+            throw new IllegalArgumentException("Unsupported key value frame version " + version);
+        }
+        int recordCount = frame.getInt(offset + 4);
+        if (recordCount < 0) {
+            throw new IllegalArgumentException("Malformed key value frame, invalid record count " + recordCount);
+        }
+        if (version == BinaryFrameWriter.DICTIONARY_VERSION) {
+            int dictionaryOffset = offset + BinaryFrameWriter.HEADER_SIZE;
+            int length = dictionaryOffset + 4 > frame.limit() ? -1 : frame.getInt(dictionaryOffset);
+            if (length < DICTIONARY_HEADER_SIZE - 4 || (long) dictionaryOffset + 4 + length > frame.limit()) {
+                throw new IllegalArgumentException("Malformed key value frame, invalid dictionary length " + length);
+            }
+        }
+        return recordCount;
+    }
+
+    /**
+     * @param frame buffer positioned at the start of the frame.
+     * @return absolute offset of the first record of the frame.
+     */
+    public static int getFirstRecordOffset(ByteBuffer frame) {
+        return getDataOffset(frame);
+    }
+
+    /**
+     * Checks that the number of records given in the frame header can fit in the bytes after the first record
+     * offset, so that a corrupt record count is rejected before anything is allocated for the records. A record
+     * takes at least 6 bytes, and a record of a sparse or schema frame at least 4 bytes and its presence bitmap.
+     *
+     * @param frame       buffer holding the frame.
+     * @param offset      absolute offset of the first record.
+     * @param recordCount number of records given in the frame header.
+     * @param keyIndexes  index of each key of a sparse or schema frame, or null for other frames.
+     */
+    public static void checkRecordCount(ByteBuffer frame, int offset, int recordCount, int[] keyIndexes) {
+        int minRecordSize = keyIndexes == null ? MIN_RECORD_SIZE : 4 + ((keyIndexes.length + 7) >>> 3);
+        if ((long) recordCount * minRecordSize > (long) frame.limit() - offset) {
+            throw new IllegalArgumentException("Malformed key value frame, " + recordCount + " records do not " +
+                    "fit in the frame");
+        }
+    }
+
+    /**
+     * @return absolute offset of the first record, or of the keys of a sparse frame, after the dictionary entries.
+     */
+    private static int getDataOffset(ByteBuffer frame) {
+        int offset = frame.position() + BinaryFrameWriter.HEADER_SIZE;
+        if (frame.get(frame.position() + 3) == BinaryFrameWriter.DICTIONARY_VERSION) {
+            offset += 4 + frame.getInt(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * @param frame buffer positioned at the start of the frame.
+     * @return true if the records of the frame refer to the entries of a dictionary.
+     */
+    public static boolean hasDictionary(ByteBuffer frame) {
+        return frame.get(frame.position() + 3) == BinaryFrameWriter.DICTIONARY_VERSION;
+    }
+
+    /**
+     * Reads the dictionary entries of a frame into the cache of the dictionary the frame was written with.
+     * Entries that are already cached are not decoded again.
+     *
+     * @param frame buffer positioned at the start of the frame, whose header was validated by
+     *              {@link #getRecordCount(ByteBuffer)}.
+     * @return the cached entries of the dictionary, where entries that were not received yet are null, or null if
+     * the frame does not use a dictionary.
+     */
+    public String[] readDictionary(ByteBuffer frame) {
+        if (!hasDictionary(frame)) {
+            return null;
+        }
+        int offset = frame.position() + BinaryFrameWriter.HEADER_SIZE;
+        int end = offset + 4 + frame.getInt(offset);
+        long dictionaryId = frame.getLong(offset + 4);
+        int firstEntry = frame.getInt(offset + 12);
+        int entryCount = frame.getInt(offset + 16);
+        if (firstEntry < 0 || entryCount < 0 ||
+                (entryCount > 0 && (long) firstEntry + entryCount > maxDictionarySize)) {
+            throw new IllegalArgumentException("Malformed key value frame, invalid dictionary entries " + firstEntry +
+                    " to " + ((long) firstEntry + entryCount) + " of a dictionary of at most " + maxDictionarySize +
+                    " entries");
+        }
+        // Frames without new entries may follow entries that were rejected, hence their first entry is not checked
+        int requiredSize = entryCount == 0 ? 0 : firstEntry + entryCount;
+        synchronized (dictionaries) {
+            String[] entries = dictionaries.get(dictionaryId);
+            if (entries == null || entries.length < requiredSize) {
+                int size = Math.max(requiredSize, entries == null ? 16 : entries.length * 2);
+                entries = entries == null ? new String[Math.min(size, maxDictionarySize)] :
+                        Arrays.copyOf(entries, Math.min(size, maxDictionarySize));
+                dictionaries.put(dictionaryId, entries);
+            }
+            int position = offset + DICTIONARY_HEADER_SIZE;
+            for (int i = 0; i < entryCount; i++) {
+                int length = position + 4 > end ? -1 : frame.getInt(position);
+                if (length < 0 || (long) position + 4 + length > end) {
+                    throw new IllegalArgumentException("Malformed key value frame, dictionary entry " +
+                            (firstEntry + i) + " exceeds the dictionary");
+                }
+                if (entries[firstEntry + i] == null) {
+                    entries[firstEntry + i] = readString(frame, position + 4, length);
+                }
+                position += 4 + length;
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Reads a record, placing the value of each indexed key at its index in the given array. Values of keys that
+     * are absent from the record are set to null.
+     *
+     * @param frame  buffer holding the frame.
+     * @param offset absolute offset of the record.
+     * @param values array to fill with the decoded values.
+     * @return absolute offset of the next record.
+     */
+    public int readRecord(ByteBuffer frame, int offset, Object[] values) {
+        return readRecord(frame, offset, null, values);
+    }
+
+    /**
+     * Reads a record, placing the value of each indexed key at its index in the given array. Values of keys that
+     * are absent from the record are set to null.
+     *
+     * @param frame      buffer holding the frame.
+     * @param offset     absolute offset of the record.
+     * @param dictionary entries of the dictionary of the frame, as returned by {@link #readDictionary(ByteBuffer)}.
+     * @param values     array to fill with the decoded values.
+     * @return absolute offset of the next record.
+     */
+    public int readRecord(ByteBuffer frame, int offset, String[] dictionary, Object[] values) {
+        Arrays.fill(values, null);
+        int length = frame.getInt(offset);
+        int end = offset + 4 + length;
+        if (length < 2 || end > frame.limit()) {
+            throw new IllegalArgumentException("Malformed key value frame, invalid record length " + length +
+                    " at offset " + offset);
+        }
+        int fieldCount = frame.getShort(offset + 4) & 0xffff;
+        int position = offset + 6;
+        for (int i = 0; i < fieldCount; i++) {
+            int keyLength = frame.getShort(position) & 0xffff;
+            int index = keyIndex.get(frame, position + 2, keyLength);
+            position += 2 + keyLength;
+            position = readValue(frame, position, index, dictionary, values);
+            if (position > end) {
+                throw new IllegalArgumentException("Malformed key value frame, field exceeds the record at offset " +
+                        offset);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether the remaining bytes of the buffer start with a sparse frame header.
+     *
+     * @param buffer the payload.
+     * @return true if the payload is a sparse key value frame.
+     */
+    public static boolean isSparseFrame(ByteBuffer buffer) {
+        int offset = buffer.position();
+        return buffer.remaining() >= BinaryFrameWriter.HEADER_SIZE + 2 &&
+                buffer.get(offset) == BinaryFrameWriter.SPARSE_MAGIC[0] &&
+                buffer.get(offset + 1) == BinaryFrameWriter.SPARSE_MAGIC[1] &&
+                buffer.get(offset + 2) == BinaryFrameWriter.SPARSE_MAGIC[2];
+    }
+
+    /**
+     * Reads the keys of a sparse frame. Each key is looked up once per frame, rather than once per record.
+     *
+     * @param frame buffer positioned at the start of the sparse frame.
+     * @return the index of each key of the frame, or -1 for keys that are not indexed.
+     */
+    public int[] readSparseKeys(ByteBuffer frame) {
+        return readKeys(frame, getDataOffset(frame));
+    }
+
+    /**
+     * @param frame buffer positioned at the start of the sparse frame.
+     * @return absolute offset of the first record of the sparse frame.
+     */
+    public static int getFirstSparseRecordOffset(ByteBuffer frame) {
+        return skipKeys(frame, getDataOffset(frame));
+    }
+
+    /**
+     * Checks whether the remaining bytes of the buffer start with a schema frame header.
+     *
+     * @param buffer the payload.
+     * @return true if the payload is a schema key value frame.
+     */
+    public static boolean isSchemaFrame(ByteBuffer buffer) {
+        int offset = buffer.position();
+        return buffer.remaining() >= BinaryFrameWriter.HEADER_SIZE + 10 &&
+                buffer.get(offset) == BinaryFrameWriter.SCHEMA_MAGIC[0] &&
+                buffer.get(offset + 1) == BinaryFrameWriter.SCHEMA_MAGIC[1] &&
+                buffer.get(offset + 2) == BinaryFrameWriter.SCHEMA_MAGIC[2];
+    }
+
+    /**
+     * Returns the cached plan of the schema of a schema frame, building and caching the plan when the frame is the
+     * first to carry the keys of the schema. Keys of the schema that are not indexed are mapped to -1, and indexed
+     * keys that are not in the schema are not mapped, so that their values are null.
+     *
+     * @param frame buffer positioned at the start of the schema frame.
+     * @return the index of each key of the schema, in the form accepted by
+     * {@link #readSparseRecord(ByteBuffer, int, int[], String[], Object[])}.
+     */
+    public int[] readSchemaPlan(ByteBuffer frame) {
+        int position = getDataOffset(frame);
+        if (position + 10 > frame.limit()) {
+            throw new IllegalArgumentException("Malformed schema key value frame, the schema exceeds the frame");
+        }
+        long fingerprint = frame.getLong(position);
+        int[] plan;
+        synchronized (plans) {
+            plan = plans.get(fingerprint);
+        }
+        if (plan != null) {
+            return plan;
+        }
+        int keyCount = frame.getShort(position + 8) & 0xffff;
+        if (keyCount == 0) {
+            throw new IllegalArgumentException("The keys of schema " + Long.toHexString(fingerprint) +
+                    " have not been received yet");
+        }
+        plan = readKeys(frame, position + 8);
+        byte[][] keys = new byte[keyCount][];
+        position += 10;
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = new byte[frame.getShort(position) & 0xffff];
+            for (int j = 0; j < keys[i].length; j++) {
+                keys[i][j] = frame.get(position + 2 + j);
+            }
+            position += 2 + keys[i].length;
+        }
+        if (BinaryFrameWriter.fingerprint(keys) != fingerprint) {
+            throw new IllegalArgumentException("Malformed schema key value frame, the keys do not match the " +
+                    "fingerprint " + Long.toHexString(fingerprint));
+        }
+        synchronized (plans) {
+            plans.put(fingerprint, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * @param frame buffer positioned at the start of the schema frame.
+     * @return absolute offset of the first record of the schema frame.
+     */
+    public static int getFirstSchemaRecordOffset(ByteBuffer frame) {
+        return skipKeys(frame, getDataOffset(frame) + 8);
+    }
+
+    /**
+     * Reads a key count followed by the keys, looking up each key once.
+     *
+     * @return the index of each key, or -1 for keys that are not indexed.
+     */
+    private int[] readKeys(ByteBuffer frame, int position) {
+        int[] keyIndexes = new int[frame.getShort(position) & 0xffff];
+        position += 2;
+        for (int i = 0; i < keyIndexes.length; i++) {
+            int keyLength = position + 2 > frame.limit() ? -1 : frame.getShort(position) & 0xffff;
+            if (keyLength < 0 || position + 2 + keyLength > frame.limit()) {
+                throw new IllegalArgumentException("Malformed sparse key value frame, key " + i +
+                        " exceeds the frame");
+            }
+            keyIndexes[i] = keyIndex.get(frame, position + 2, keyLength);
+            position += 2 + keyLength;
+        }
+        return keyIndexes;
+    }
+
+    private static int skipKeys(ByteBuffer frame, int position) {
+        int keyCount = frame.getShort(position) & 0xffff;
+        position += 2;
+        for (int i = 0; i < keyCount; i++) {
+            position += 2 + (frame.getShort(position) & 0xffff);
+        }
+        return position;
+    }
+
+    /**
+     * Reads a record of a sparse frame, placing the value of each indexed key at its index in the given array.
+     * Values of keys that are absent from the record are set to null.
+     *
+     * @param frame      buffer holding the frame.
+     * @param offset     absolute offset of the record.
+     * @param keyIndexes index of each key of the frame, as returned by {@link #readSparseKeys(ByteBuffer)}.
+     * @param values     array to fill with the decoded values.
+     * @return absolute offset of the next record.
+     */
+    public int readSparseRecord(ByteBuffer frame, int offset, int[] keyIndexes, Object[] values) {
+        return readSparseRecord(frame, offset, keyIndexes, null, values);
+    }
+
+    /**
+     * Reads a record of a sparse frame, placing the value of each indexed key at its index in the given array.
+     * Values of keys that are absent from the record are set to null.
+     *
+     * @param frame      buffer holding the frame.
+     * @param offset     absolute offset of the record.
+     * @param keyIndexes index of each key of the frame, as returned by {@link #readSparseKeys(ByteBuffer)}.
+     * @param dictionary entries of the dictionary of the frame, as returned by {@link #readDictionary(ByteBuffer)}.
+     * @param values     array to fill with the decoded values.
+     * @return absolute offset of the next record.
+     */
+    public int readSparseRecord(ByteBuffer frame, int offset, int[] keyIndexes, String[] dictionary,
+                                Object[] values) {
+        Arrays.fill(values, null);
+        int length = frame.getInt(offset);
+        int end = offset + 4 + length;
+        int bitmapSize = (keyIndexes.length + 7) >>> 3;
+        if (length < bitmapSize || end > frame.limit()) {
+            throw new IllegalArgumentException("Malformed sparse key value frame, invalid record length " + length +
+                    " at offset " + offset);
+        }
+        int bitmapStart = offset + 4;
+        int position = bitmapStart + bitmapSize;
+        for (int i = 0; i < keyIndexes.length; i++) {
+            if ((frame.get(bitmapStart + (i >>> 3)) & (1 << (i & 7))) != 0) {
+                position = readValue(frame, position, keyIndexes[i], dictionary, values);
+                if (position > end) {
+                    throw new IllegalArgumentException("Malformed sparse key value frame, value exceeds the record " +
+                            "at offset " + offset);
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Reads a tagged value, placing it at the given index of the value array unless the index is negative.
+     *
+     * @return absolute offset after the value.
+     */
+    private int readValue(ByteBuffer frame, int position, int index, String[] dictionary, Object[] values) {
+        byte type = frame.get(position++);
+        switch (type) {
+            case BinaryFrameWriter.TYPE_NULL:
+                break;
+            case BinaryFrameWriter.TYPE_STRING:
+                int stringLength = frame.getInt(position);
+                if (index >= 0) {
+                    values[index] = readString(frame, position + 4, stringLength);
+                }
+                position += 4 + stringLength;
+                break;
+            case BinaryFrameWriter.TYPE_INT:
+                if (index >= 0) {
+                    values[index] = frame.getInt(position);
+                }
+                position += 4;
+                break;
+            case BinaryFrameWriter.TYPE_LONG:
+                if (index >= 0) {
+                    values[index] = frame.getLong(position);
+                }
+                position += 8;
+                break;
+            case BinaryFrameWriter.TYPE_FLOAT:
+                if (index >= 0) {
+                    values[index] = frame.getFloat(position);
+                }
+                position += 4;
+                break;
+            case BinaryFrameWriter.TYPE_DOUBLE:
+                if (index >= 0) {
+                    values[index] = frame.getDouble(position);
+                }
+                position += 8;
+                break;
+            case BinaryFrameWriter.TYPE_BOOL:
+                if (index >= 0) {
+                    values[index] = frame.get(position) != 0;
+                }
+                position += 1;
+                break;
+            case BinaryFrameWriter.TYPE_DICTIONARY_ENTRY:
+                if (index >= 0) {
+                    int entryNumber = frame.getInt(position);
+                    if (dictionary == null || entryNumber < 0 || entryNumber >= dictionary.length ||
+                            dictionary[entryNumber] == null) {
+                        throw new IllegalArgumentException("Dictionary entry " + entryNumber + " at offset " +
+                                position + " has not been received yet");
+                    }
+                    values[index] = dictionary[entryNumber];
+                }
+                position += 4;
+                break;
+            case BinaryFrameWriter.TYPE_OBJECT:
+                int objectLength = frame.getInt(position);
+                if (index >= 0) {
+                    values[index] = readObject(frame, position + 4, objectLength, classAllowList);
+                }
+                position += 4 + objectLength;
+                break;
+            default:
+                throw new IllegalArgumentException("Malformed key value frame, unknown value type " + type +
+                        " at offset " + (position - 1));
+        }
+        return position;
+    }
+
+    static String readString(ByteBuffer frame, int offset, int length) {
+        checkLength(frame, offset, length);
+        if (frame.hasArray()) {
+            return new String(frame.array(), frame.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] scratch = acquireScratch(length);
+        try {
+            for (int i = 0; i < length; i++) {
+                scratch[i] = frame.get(offset + i);
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        } finally {
+            releaseScratch(scratch);
+        }
+    }
+
+    static Object readObject(ByteBuffer frame, int offset, int length, ClassAllowList classAllowList) {
+        checkLength(frame, offset, length);
+        try {
+            if (frame.hasArray()) {
+                return classAllowList.deserialize(frame.array(), frame.arrayOffset() + offset, length);
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = frame.get(offset + i);
+            }
+            return classAllowList.deserialize(bytes, 0, length);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("Error is encountered when deserializing an object value of the key " +
+                    "value frame. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks that a value read in place, or copied for a direct buffer, lies within the frame.
+     */
+    private static void checkLength(ByteBuffer frame, int offset, int length) {
+        if (length < 0 || (long) offset + length > frame.limit()) {
+            throw new IllegalArgumentException("Malformed key value frame, value of length " + length +
+                    " at offset " + offset + " exceeds the frame");
+        }
+    }
+
+    private static byte[] acquireScratch(int length) {
+        byte[] scratch = SCRATCH.poll();
+        return scratch != null && scratch.length >= length ? scratch : new byte[Math.max(length, MIN_SCRATCH_SIZE)];
+    }
+
+    private static void releaseScratch(byte[] scratch) {
+        if (scratch.length <= MAX_RETAINED_SCRATCH_SIZE) {
+            SCRATCH.offer(scratch);
+        }
+    }
+}
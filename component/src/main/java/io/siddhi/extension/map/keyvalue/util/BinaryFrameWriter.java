@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes key value records into a length prefixed binary frame, so that a single byte array carries any number of
+ * records. All integers are big endian. The layout of a frame is:
+ * <pre>
+ * frame  := 'K' 'V' 'F' version:u8 recordCount:i32 record*
+ * record := length:i32 fieldCount:u16 field*
+ * field  := keyLength:u16 key:utf8 type:u8 value
+ * </pre>
+ * Values are written according to their type tag: strings and Java serialized objects as a length prefixed byte
+ * sequence, and primitives in their natural binary width.
+ * <p>
+ * Sparse frames write the keys once in the frame header, and mark the non-null values of each record in a presence
+ * bitmap instead of writing a field per key:
+ * <pre>
+ * frame  := 'K' 'V' 'S' version:u8 recordCount:i32 keyCount:u16 (keyLength:u16 key:utf8)* record*
+ * record := length:i32 presence:u8[(keyCount + 7) / 8] (type:u8 value)*
+ * </pre>
+ * Bit {@code i % 8} of presence byte {@code i / 8} is set when the record has a value for key {@code i}.
+ * <p>
+ * Schema frames identify the keys of their records by a fingerprint, and only carry the keys themselves when the
+ * writer decides to send its schema, for instance on a fixed interval. Readers cache a plan per fingerprint that
+ * maps the position of each key to their own value positions, so that readers and writers of different schema
+ * versions interoperate. The records are the same as the records of sparse frames:
+ * <pre>
+ * frame  := 'K' 'V' 'R' version:u8 recordCount:i32 fingerprint:i64 keyCount:u16 (keyLength:u16 key:utf8)* record*
+ * </pre>
+ * where {@code keyCount} is 0 when the keys are left out.
+ * <p>
+ * String values can be written as numbers of the entries of a {@link StringDictionary} instead of text. Frames
+ * holding such values have version 2, and carry the entries added to the dictionary since the previous frame right
+ * after the fixed size header, and before the keys of sparse and schema frames:
+ * <pre>
+ * dictionary := length:i32 dictionaryId:i64 firstEntry:i32 entryCount:i32 (length:i32 entry:utf8)*
+ * </pre>
+ * <p>
+ * A writer reuses its buffer across frames and is not thread safe.
+ */
+public class BinaryFrameWriter {
+
+    public static final byte[] MAGIC = {'K', 'V', 'F'};
+    public static final byte[] SPARSE_MAGIC = {'K', 'V', 'S'};
+    public static final byte[] SCHEMA_MAGIC = {'K', 'V', 'R'};
+    public static final byte VERSION = 1;
+    public static final byte DICTIONARY_VERSION = 2;
+    public static final int HEADER_SIZE = 8;
+
+    public static final byte TYPE_NULL = 0;
+    public static final byte TYPE_STRING = 1;
+    public static final byte TYPE_INT = 2;
+    public static final byte TYPE_LONG = 3;
+    public static final byte TYPE_FLOAT = 4;
+    public static final byte TYPE_DOUBLE = 5;
+    public static final byte TYPE_BOOL = 6;
+    public static final byte TYPE_OBJECT = 7;
+    public static final byte TYPE_DICTIONARY_ENTRY = 8;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final long FINGERPRINT_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int recordCount;
+    private int recordStart;
+    private int fieldCount;
+    private int keyCount;
+
+    /**
+     * Encodes keys to the byte form expected by {@link #writeField(byte[], Object)}.
+     *
+     * @param keys the keys to encode.
+     * @return UTF-8 encoded keys.
+     */
+    public static byte[][] encodeKeys(String[] keys) {
+        byte[][] encoded = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            encoded[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /**
+     * Computes the fingerprint of a schema, which is the 64 bit FNV-1a hash of its keys, each followed by a 0xff
+     * byte that cannot occur in UTF-8.
+     *
+     * @param keys UTF-8 encoded keys of the schema, in order.
+     * @return the fingerprint of the schema.
+     */
+    public static long fingerprint(byte[][] keys) {
+        long hash = FINGERPRINT_OFFSET_BASIS;
+        for (byte[] key : keys) {
+            for (byte b : key) {
+                hash = (hash ^ (b & 0xff)) * FINGERPRINT_PRIME;
+            }
+            hash = (hash ^ 0xff) * FINGERPRINT_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Discards the content of the buffer and starts a new frame.
+     */
+    public void startFrame() {
+        startFrame(MAGIC);
+    }
+
+    /**
+     * Discards the content of the buffer and starts a new sparse frame.
+     *
+     * @param keys UTF-8 encoded keys, in the order of the values given to {@link #writeSparseRecord(Object[])}.
+     */
+    public void startSparseFrame(byte[][] keys) {
+        startFrame(SPARSE_MAGIC);
+        writeKeys(keys);
+    }
+
+    /**
+     * Discards the content of the buffer and starts a new schema frame.
+     *
+     * @param keys        UTF-8 encoded keys, in the order of the values given to {@link #writeSparseRecord(Object[])}.
+     * @param fingerprint fingerprint of the keys, as computed by {@link #fingerprint(byte[][])}.
+     * @param withKeys    whether the keys are written to the frame, or only the fingerprint.
+     */
+    public void startSchemaFrame(byte[][] keys, long fingerprint, boolean withKeys) {
+        startFrame(SCHEMA_MAGIC);
+        ensureCapacity(8);
+        writeLong(fingerprint);
+        if (withKeys) {
+            writeKeys(keys);
+        } else {
+            keyCount = keys.length;
+            ensureCapacity(2);
+            writeShort(0);
+        }
+    }
+
+    private void writeKeys(byte[][] keys) {
+        keyCount = keys.length;
+        ensureCapacity(2);
+        writeShort(keys.length);
+        for (byte[] key : keys) {
+            ensureCapacity(key.length + 2);
+            writeShort(key.length);
+            System.arraycopy(key, 0, buffer, position, key.length);
+            position += key.length;
+        }
+    }
+
+    private void startFrame(byte[] magic) {
+        position = 0;
+        recordCount = 0;
+        ensureCapacity(HEADER_SIZE);
+        System.arraycopy(magic, 0, buffer, 0, magic.length);
+        buffer[3] = VERSION;
+        position = HEADER_SIZE;
+    }
+
+    public void startRecord() {
+        ensureCapacity(6);
+        recordStart = position;
+        fieldCount = 0;
+        position += 6;
+    }
+
+    /**
+     * Appends a field to the current record.
+     *
+     * @param key   UTF-8 encoded key of the field.
+     * @param value value of the field.
+     * @throws IOException if the value is not one of the Siddhi attribute types and cannot be serialized.
+     */
+    public void writeField(byte[] key, Object value) throws IOException {
+        writeField(key, value, null);
+    }
+
+    /**
+     * Appends a field to the current record, writing a string value as a dictionary entry.
+     *
+     * @param key        UTF-8 encoded key of the field.
+     * @param value      value of the field.
+     * @param dictionary dictionary to encode a string value with, or null to write it as text.
+     * @throws IOException if the value is not one of the Siddhi attribute types and cannot be serialized.
+     */
+    public void writeField(byte[] key, Object value, StringDictionary dictionary) throws IOException {
+        ensureCapacity(key.length + 2);
+        writeShort(key.length);
+        System.arraycopy(key, 0, buffer, position, key.length);
+        position += key.length;
+        writeValue(value, dictionary);
+        fieldCount++;
+    }
+
+    /**
+     * Appends a record to the current sparse frame. When a value cannot be written the record is discarded.
+     *
+     * @param values the value of each key of the frame, where null values are left out of the record.
+     * @throws IOException if a value is not one of the Siddhi attribute types and cannot be serialized.
+     */
+    public void writeSparseRecord(Object[] values) throws IOException {
+        writeSparseRecord(values, null);
+    }
+
+    /**
+     * Appends a record to the current sparse frame, writing string values as dictionary entries. When a value
+     * cannot be written the record is discarded.
+     *
+     * @param values       the value of each key of the frame, where null values are left out of the record.
+     * @param dictionaries the dictionary to encode the string value of each key with, or null for keys whose values
+     *                     are written as text. The array itself may be null.
+     * @throws IOException if a value is not one of the Siddhi attribute types and cannot be serialized.
+     */
+    public void writeSparseRecord(Object[] values, StringDictionary[] dictionaries) throws IOException {
+        int bitmapSize = (keyCount + 7) >>> 3;
+        ensureCapacity(4 + bitmapSize);
+        recordStart = position;
+        position += 4;
+        int bitmapStart = position;
+        Arrays.fill(buffer, bitmapStart, bitmapStart + bitmapSize, (byte) 0);
+        position += bitmapSize;
+        try {
+            for (int i = 0; i < keyCount; i++) {
+                if (values[i] != null) {
+                    buffer[bitmapStart + (i >>> 3)] |= (byte) (1 << (i & 7));
+                    writeValue(values[i], dictionaries == null ? null : dictionaries[i]);
+                }
+            }
+        } catch (IOException e) {
+            position = recordStart;
+            throw e;
+        }
+        writeInt(recordStart, position - recordStart - 4);
+        recordCount++;
+    }
+
+    private void writeValue(Object value, StringDictionary dictionary) throws IOException {
+        ensureCapacity(9);
+        if (dictionary != null && value instanceof String) {
+            int entryNumber = dictionary.encode((String) value);
+            if (entryNumber >= 0) {
+                buffer[position++] = TYPE_DICTIONARY_ENTRY;
+                writeInt(entryNumber);
+                return;
+            }
+        }
+        if (value == null) {
+            buffer[position++] = TYPE_NULL;
+        } else if (value instanceof String) {
+            buffer[position++] = TYPE_STRING;
+            writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer) {
+            buffer[position++] = TYPE_INT;
+            writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer[position++] = TYPE_LONG;
+            writeLong((Long) value);
+        } else if (value instanceof Float) {
+            buffer[position++] = TYPE_FLOAT;
+            writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Double) {
+            buffer[position++] = TYPE_DOUBLE;
+            writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            buffer[position++] = TYPE_BOOL;
+            buffer[position++] = (byte) ((Boolean) value ? 1 : 0);
+        } else {
+            buffer[position++] = TYPE_OBJECT;
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+                objectOutputStream.writeObject(value);
+            }
+            writeBytes(byteArrayOutputStream.toByteArray());
+        }
+    }
+
+    public void endRecord() {
+        int length = position - recordStart - 4;
+        writeInt(recordStart, length);
+        buffer[recordStart + 4] = (byte) (fieldCount >>> 8);
+        buffer[recordStart + 5] = (byte) fieldCount;
+        recordCount++;
+    }
+
+    /**
+     * Discards the record being written, for instance when one of its values cannot be written.
+     */
+    public void abortRecord() {
+        position = recordStart;
+    }
+
+    /**
+     * Completes the frame. The frame occupies the first {@link #size()} bytes of {@link #getBuffer()}.
+     */
+    public void endFrame() {
+        writeInt(4, recordCount);
+    }
+
+    /**
+     * Completes a frame whose string values were written with the given dictionary, inserting the dictionary
+     * entries that are due to be sent. The frame occupies the first {@link #size()} bytes of {@link #getBuffer()}.
+     *
+     * @param dictionary the dictionary the values of the frame were written with.
+     */
+    public void endFrame(StringDictionary dictionary) {
+        int firstEntry = dictionary.takeUnsent();
+        byte[][] entries = new byte[dictionary.size() - firstEntry][];
+        int length = 16;
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = dictionary.get(firstEntry + i).getBytes(StandardCharsets.UTF_8);
+            length += 4 + entries[i].length;
+        }
+        ensureCapacity(4 + length);
+        System.arraycopy(buffer, HEADER_SIZE, buffer, HEADER_SIZE + 4 + length, position - HEADER_SIZE);
+        int end = position + 4 + length;
+        position = HEADER_SIZE;
+        writeInt(length);
+        writeLong(dictionary.getId());
+        writeInt(firstEntry);
+        writeInt(entries.length);
+        for (byte[] entry : entries) {
+            writeInt(entry.length);
+            System.arraycopy(entry, 0, buffer, position, entry.length);
+            position += entry.length;
+        }
+        position = end;
+        buffer[3] = DICTIONARY_VERSION;
+        endFrame();
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length + 4);
+        writeInt(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeShort(int value) {
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        writeInt(position, value);
+        position += 4;
+    }
+
+    private void writeInt(int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void ensureCapacity(int required) {
+        if (position + required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + required));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classes that Java serialized payloads are allowed to instantiate. Classes are checked as their descriptors are
+ * read, before any instance is created, so that a payload naming any other class fails without running its code.
+ * Resolved classes are cached across payloads, so that each class is looked up once. An allow-list can be shared
+ * between threads.
+ * <p>
+ * Entries are fully qualified class names, or package prefixes such as {@code com.example.*} that allow the classes
+ * of the package and its sub packages. The entry {@code *} allows all classes. Arrays are allowed when their
+ * component class is allowed, and arrays of primitives are always allowed. Dynamic proxies are only allowed by
+ * {@code *}.
+ * <p>
+ * Regardless of the classes, payloads are rejected before their arrays are allocated when an array is longer than
+ * the maximum array length, when objects are nested deeper than the maximum depth, or when they hold more than the
+ * maximum number of object references. The limits are enforced through the serialization filter of the JVM, which
+ * Java 8 update 121 and later support, and the filter configured for the whole JVM, if any, applies instead.
+ */
+public class ClassAllowList {
+
+    /**
+     * Map, collection, boxed primitive and date classes that key value maps are made of.
+     */
+    public static final String[] DEFAULT_CLASSES = {
+            "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.Hashtable",
+            "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+            "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$Sync",
+            "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+            "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+            "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+            "java.util.ArrayList", "java.util.LinkedList", "java.util.HashSet", "java.util.LinkedHashSet",
+            "java.util.TreeSet", "java.util.Arrays$ArrayList",
+            "java.util.Collections$EmptyMap", "java.util.Collections$EmptyList", "java.util.Collections$EmptySet",
+            "java.util.Collections$SingletonMap", "java.util.Collections$SingletonList",
+            "java.util.Collections$UnmodifiableMap", "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList", "java.util.Collections$UnmodifiableRandomAccessList",
+            "java.util.Collections$UnmodifiableSet", "java.util.Collections$SynchronizedMap",
+            "java.lang.Number", "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short",
+            "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.String",
+            "java.math.BigInteger", "java.math.BigDecimal",
+            "java.util.Date", "java.sql.Date", "java.sql.Time", "java.sql.Timestamp"
+    };
+
+    /**
+     * Default maximum length of the arrays of a payload.
+     */
+    public static final int DEFAULT_MAX_ARRAY_LENGTH = 1_000_000;
+    /**
+     * Default maximum depth of the objects nested in a payload.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 100;
+    /**
+     * Default maximum number of object references in a payload.
+     */
+    public static final int DEFAULT_MAX_REFERENCES = 1_000_000;
+
+    private static final String ALL = "*";
+    private static final String PACKAGE_SUFFIX = ".*";
+    private static final Method CREATE_FILTER;
+    private static final Method GET_SERIAL_FILTER;
+    private static final Method SET_FILTER;
+
+    static {
+        Method createFilter = null;
+        Method getSerialFilter = null;
+        Method setFilter = null;
+        for (String filterClassName : new String[]{"java.io.ObjectInputFilter", "sun.misc.ObjectInputFilter"}) {
+            try {
+                Class<?> filterClass = Class.forName(filterClassName);
+                Class<?> configClass = Class.forName(filterClassName + "$Config");
+                createFilter = configClass.getMethod("createFilter", String.class);
+                getSerialFilter = configClass.getMethod("getSerialFilter");
+                setFilter = filterClassName.startsWith("java.") ?
+                        ObjectInputStream.class.getMethod("setObjectInputFilter", filterClass) :
+                        configClass.getMethod("setObjectInputFilter", ObjectInputStream.class, filterClass);
+                break;
+            } catch (ReflectiveOperationException e) {
+                createFilter = null;
+            }
+        }
+        CREATE_FILTER = createFilter;
+        GET_SERIAL_FILTER = createFilter == null ? null : getSerialFilter;
+        SET_FILTER = createFilter == null ? null : setFilter;
+    }
+
+    private final Set<String> classNames = new HashSet<>();
+    private final String[] packagePrefixes;
+    private final boolean allowAll;
+    private final ConcurrentHashMap<String, Class<?>> resolvedClasses = new ConcurrentHashMap<>();
+    private final Object limitsFilter;
+
+    /**
+     * Builds an allow-list of the {@link #DEFAULT_CLASSES}.
+     */
+    public ClassAllowList() {
+        this(new String[0]);
+    }
+
+    /**
+     * Builds an allow-list of the {@link #DEFAULT_CLASSES} and the given entries, with the default limits.
+     *
+     * @param entries class names, package prefixes ending with {@code .*}, or {@code *}.
+     */
+    public ClassAllowList(String[] entries) {
+        this(entries, DEFAULT_MAX_ARRAY_LENGTH, DEFAULT_MAX_DEPTH, DEFAULT_MAX_REFERENCES);
+    }
+
+    /**
+     * Builds an allow-list of the {@link #DEFAULT_CLASSES} and the given entries.
+     *
+     * @param entries        class names, package prefixes ending with {@code .*}, or {@code *}.
+     * @param maxArrayLength maximum length of the arrays of a payload.
+     * @param maxDepth       maximum depth of the objects nested in a payload.
+     * @param maxReferences  maximum number of object references in a payload.
+     */
+    public ClassAllowList(String[] entries, int maxArrayLength, int maxDepth, int maxReferences) {
+        List<String> prefixes = new ArrayList<>();
+        boolean all = false;
+        classNames.addAll(Arrays.asList(DEFAULT_CLASSES));
+        for (String entry : entries) {
+            entry = entry.trim();
+            if (entry.equals(ALL)) {
+                all = true;
+            } else if (entry.endsWith(PACKAGE_SUFFIX)) {
+                prefixes.add(entry.substring(0, entry.length() - 1));
+            } else if (!entry.isEmpty()) {
+                classNames.add(entry);
+            }
+        }
+        this.packagePrefixes = prefixes.toArray(new String[0]);
+        this.allowAll = all;
+        Object filter = null;
+        if (CREATE_FILTER != null) {
+            try {
+                filter = CREATE_FILTER.invoke(null, "maxarray=" + maxArrayLength + ";maxdepth=" + maxDepth +
+                        ";maxrefs=" + maxReferences);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create the deserialization limits filter", e);
+            }
+        }
+        this.limitsFilter = filter;
+    }
+
+    /**
+     * @param className name of a class, as given by {@link Class#getName()}.
+     * @return true if the class is allowed.
+     */
+    public boolean isAllowed(String className) {
+        if (allowAll) {
+            return true;
+        }
+        int dimensions = 0;
+        while (dimensions < className.length() && className.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions > 0) {
+            if (className.length() == dimensions + 1) {
+                return true;
+            } else if (className.charAt(dimensions) != 'L' || !className.endsWith(";")) {
+                return false;
+            }
+            className = className.substring(dimensions + 1, className.length() - 1);
+        }
+        if (classNames.contains(className)) {
+            return true;
+        }
+        for (String prefix : packagePrefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deserializes an object, only instantiating allowed classes.
+     *
+     * @param bytes  array holding the serialized object.
+     * @param offset offset of the first byte of the serialized object.
+     * @param length length of the serialized object.
+     * @return the deserialized object.
+     * @throws InvalidClassException  if the object refers to a class that is not allowed.
+     * @throws IOException            if the bytes are not a serialized object.
+     * @throws ClassNotFoundException if a class of the object cannot be found.
+     */
+    public Object deserialize(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new AllowListObjectInputStream(
+                new ByteArrayInputStream(bytes, offset, length))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    /**
+     * Stream that checks each class descriptor against the allow-list, and resolves classes through the cache of
+     * the allow-list.
+     */
+    private class AllowListObjectInputStream extends ObjectInputStream {
+
+        private AllowListObjectInputStream(InputStream inputStream) throws IOException {
+            super(inputStream);
+            if (limitsFilter != null) {
+                try {
+                    if (GET_SERIAL_FILTER.invoke(null) == null) {
+                        if (SET_FILTER.getParameterCount() == 1) {
+                            SET_FILTER.invoke(this, limitsFilter);
+                        } else {
+                            SET_FILTER.invoke(null, this, limitsFilter);
+                        }
+                    }
+                } catch (ReflectiveOperationException e) {
+                    throw new IOException("Cannot apply the deserialization limits filter", e);
+                }
+            }
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            Class<?> resolvedClass = resolvedClasses.get(name);
+            if (resolvedClass != null) {
+                return resolvedClass;
+            } else if (!isAllowed(name)) {
+                throw new InvalidClassException(name, "Class is not allowed to be deserialized");
+            }
+            resolvedClass = super.resolveClass(desc);
+            resolvedClasses.putIfAbsent(name, resolvedClass);
+            return resolvedClass;
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            if (!allowAll) {
+                throw new InvalidClassException(Arrays.toString(interfaces),
+                        "Dynamic proxies are not allowed to be deserialized");
+            }
+            return super.resolveProxyClass(interfaces);
+        }
+    }
+}
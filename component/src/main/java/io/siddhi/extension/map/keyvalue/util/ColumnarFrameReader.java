@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the rows of frames written by {@link ColumnarFrameWriter}. Each column key is looked up once per frame
+ * against a precompiled {@link KeyIndex}, and columns of keys that are not indexed are skipped without being
+ * decoded. Reads never change the position or limit of the given buffer, hence a reader can be shared between
+ * threads.
+ */
+public class ColumnarFrameReader {
+
+    private final KeyIndex keyIndex;
+    private final ClassAllowList classAllowList;
+
+    /**
+     * @param keyIndex index from the keys of interest to their position in the rows filled by this reader.
+     */
+    public ColumnarFrameReader(KeyIndex keyIndex) {
+        this(keyIndex, new ClassAllowList());
+    }
+
+    /**
+     * @param keyIndex       index from the keys of interest to their position in the rows filled by this reader.
+     * @param classAllowList classes that object values are allowed to instantiate.
+     */
+    public ColumnarFrameReader(KeyIndex keyIndex, ClassAllowList classAllowList) {
+        this.keyIndex = keyIndex;
+        this.classAllowList = classAllowList;
+    }
+
+    /**
+     * Checks whether the remaining bytes of the buffer start with a columnar frame header.
+     *
+     * @param buffer the payload.
+     * @return true if the payload is a columnar key value frame.
+     */
+    public static boolean isFrame(ByteBuffer buffer) {
+        int offset = buffer.position();
+        return buffer.remaining() >= ColumnarFrameWriter.HEADER_SIZE &&
+                buffer.get(offset) == ColumnarFrameWriter.MAGIC[0] &&
+                buffer.get(offset + 1) == ColumnarFrameWriter.MAGIC[1] &&
+                buffer.get(offset + 2) == ColumnarFrameWriter.MAGIC[2];
+    }
+
+    /**
+     * Reads all rows of a frame, placing the value of each indexed key at its index in the row arrays. Values of
+     * keys that are absent from the frame are null. The columns are checked to fit in the frame before the rows are
+     * allocated, so that the row count of a malformed frame cannot allocate more rows than the frame encodes.
+     *
+     * @param frame      buffer positioned at the start of the frame.
+     * @param valueCount size of each row array.
+     * @return the rows of the frame.
+     */
+    public Object[][] read(ByteBuffer frame, int valueCount) {
+        int offset = frame.position();
+        if (frame.get(offset + 3) != ColumnarFrameWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported columnar key value frame version " +
+                    frame.get(offset + 3));
+        }
+        int rowCount = frame.getInt(offset + 4);
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("Malformed columnar key value frame, invalid row count " + rowCount);
+        }
+        int columnCount = frame.getShort(offset + 8) & 0xffff;
+        int nullsSize = (rowCount + 7) >>> 3;
+        if ((rowCount > 0 && columnCount == 0) || (long) nullsSize * columnCount > frame.remaining()) {
+            throw new IllegalArgumentException("Malformed columnar key value frame, " + rowCount + " rows do not " +
+                    "fit in the frame");
+        }
+        // Every row takes at least its null bit and fixed width values in each column, which are checked before
+        // allocating the rows
+        readColumns(frame, offset, rowCount, columnCount, nullsSize, null);
+        Object[][] rows = new Object[rowCount][valueCount];
+        readColumns(frame, offset, rowCount, columnCount, nullsSize, rows);
+        return rows;
+    }
+
+    /**
+     * Reads the columns of a frame into the given rows, or only checks that they fit in the frame if the rows are
+     * null.
+     */
+    private void readColumns(ByteBuffer frame, int offset, int rowCount, int columnCount, int nullsSize,
+                             Object[][] rows) {
+        int position = offset + ColumnarFrameWriter.HEADER_SIZE;
+        for (int column = 0; column < columnCount; column++) {
+            if (position + 2 > frame.limit()) {
+                throw new IllegalArgumentException("Malformed columnar key value frame, column " + column +
+                        " exceeds the frame");
+            }
+            int keyLength = frame.getShort(position) & 0xffff;
+            if (position + 3 + keyLength + nullsSize > frame.limit()) {
+                throw new IllegalArgumentException("Malformed columnar key value frame, column " + column +
+                        " exceeds the frame");
+            }
+            int index = rows == null ? -1 : keyIndex.get(frame, position + 2, keyLength);
+            position += 2 + keyLength;
+            byte type = frame.get(position++);
+            int nullsStart = position;
+            position += nullsSize;
+            position = readColumn(frame, position, type, nullsStart, rowCount, rows, index);
+            if (position > frame.limit()) {
+                throw new IllegalArgumentException("Malformed columnar key value frame, values of column " + column +
+                        " exceed the frame");
+            }
+        }
+    }
+
+    /**
+     * Reads the values of a column, placing them at the given index of each row unless the index is negative.
+     *
+     * @return absolute offset after the column.
+     */
+    private int readColumn(ByteBuffer frame, int position, byte type, int nullsStart, int rowCount,
+                           Object[][] rows, int index) {
+        switch (type) {
+            case BinaryFrameWriter.TYPE_NULL:
+                return position;
+            case BinaryFrameWriter.TYPE_INT:
+            case BinaryFrameWriter.TYPE_FLOAT:
+                checkFixedWidth(frame, position, rowCount, 4);
+                if (index >= 0) {
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull(frame, nullsStart, row)) {
+                            rows[row][index] = type == BinaryFrameWriter.TYPE_INT ?
+                                    (Object) frame.getInt(position + row * 4) :
+                                    (Object) frame.getFloat(position + row * 4);
+                        }
+                    }
+                }
+                return position + rowCount * 4;
+            case BinaryFrameWriter.TYPE_LONG:
+            case BinaryFrameWriter.TYPE_DOUBLE:
+                checkFixedWidth(frame, position, rowCount, 8);
+                if (index >= 0) {
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull(frame, nullsStart, row)) {
+                            rows[row][index] = type == BinaryFrameWriter.TYPE_LONG ?
+                                    (Object) frame.getLong(position + row * 8) :
+                                    (Object) frame.getDouble(position + row * 8);
+                        }
+                    }
+                }
+                return position + rowCount * 8;
+            case BinaryFrameWriter.TYPE_BOOL:
+                checkFixedWidth(frame, position, rowCount, 1);
+                if (index >= 0) {
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!isNull(frame, nullsStart, row)) {
+                            rows[row][index] = frame.get(position + row) != 0;
+                        }
+                    }
+                }
+                return position + rowCount;
+            case BinaryFrameWriter.TYPE_STRING:
+            case BinaryFrameWriter.TYPE_OBJECT:
+                for (int row = 0; row < rowCount; row++) {
+                    if (isNull(frame, nullsStart, row)) {
+                        continue;
+                    }
+                    int length = position + 4 > frame.limit() ? -1 : frame.getInt(position);
+                    if (length < 0 || (long) position + 4 + length > frame.limit()) {
+                        throw new IllegalArgumentException("Malformed columnar key value frame, invalid value " +
+                                "length " + length + " at offset " + position);
+                    }
+                    if (index >= 0) {
+                        rows[row][index] = type == BinaryFrameWriter.TYPE_STRING ?
+                                BinaryFrameReader.readString(frame, position + 4, length) :
+                                BinaryFrameReader.readObject(frame, position + 4, length, classAllowList);
+                    }
+                    position += 4 + length;
+                }
+                return position;
+            default:
+                throw new IllegalArgumentException("Malformed columnar key value frame, unknown column type " + type +
+                        " at offset " + (nullsStart - 1));
+        }
+    }
+
+    private static boolean isNull(ByteBuffer frame, int nullsStart, int row) {
+        return (frame.get(nullsStart + (row >>> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    private static void checkFixedWidth(ByteBuffer frame, int position, int rowCount, int width) {
+        if ((long) position + (long) rowCount * width > frame.limit()) {
+            throw new IllegalArgumentException("Malformed columnar key value frame, column values at offset " +
+                    position + " exceed the frame");
+        }
+    }
+}
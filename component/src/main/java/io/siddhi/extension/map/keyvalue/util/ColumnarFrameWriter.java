@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a batch of key value records column by column, so that each key is written once per batch and primitive
+ * values are written back to back without type tags. All integers are big endian. The layout of a frame is:
+ * <pre>
+ * frame  := 'K' 'V' 'C' version:u8 rowCount:i32 columnCount:u16 column*
+ * column := keyLength:u16 key:utf8 type:u8 nulls:u8[(rowCount + 7) / 8] value*
+ * </pre>
+ * Bit {@code r % 8} of null byte {@code r / 8} is set when row {@code r} has no value. The type of a column is
+ * taken from its values, using the type tags of {@link BinaryFrameWriter}. Int, long, float, double and bool columns
+ * hold a fixed width value for every row, where null rows hold zero. String and object columns only hold the
+ * values of non-null rows, each prefixed by its length. A column whose values are of different types is written as
+ * an object column.
+ * <p>
+ * A writer reuses its buffer across frames and is not thread safe.
+ */
+public class ColumnarFrameWriter {
+
+    public static final byte[] MAGIC = {'K', 'V', 'C'};
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 10;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+
+    /**
+     * Discards the content of the buffer and writes the given rows as a new frame. The frame occupies the first
+     * {@link #size()} bytes of {@link #getBuffer()}.
+     *
+     * @param keys     UTF-8 encoded keys, one per column.
+     * @param rows     rows holding one value per key.
+     * @param rowCount number of rows to write.
+     * @throws IOException if a value is not one of the Siddhi attribute types and cannot be serialized.
+     */
+    public void write(byte[][] keys, Object[][] rows, int rowCount) throws IOException {
+        position = 0;
+        ensureCapacity(HEADER_SIZE);
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        buffer[3] = VERSION;
+        position = 4;
+        writeInt(rowCount);
+        writeShort(keys.length);
+        int nullsSize = (rowCount + 7) >>> 3;
+        for (int column = 0; column < keys.length; column++) {
+            byte type = typeOf(rows, rowCount, column);
+            ensureCapacity(keys[column].length + 3 + nullsSize);
+            writeShort(keys[column].length);
+            System.arraycopy(keys[column], 0, buffer, position, keys[column].length);
+            position += keys[column].length;
+            buffer[position++] = type;
+            int nullsStart = position;
+            Arrays.fill(buffer, nullsStart, nullsStart + nullsSize, (byte) 0);
+            position += nullsSize;
+            for (int row = 0; row < rowCount; row++) {
+                if (rows[row][column] == null) {
+                    buffer[nullsStart + (row >>> 3)] |= (byte) (1 << (row & 7));
+                }
+            }
+            writeValues(rows, rowCount, column, type);
+        }
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeValues(Object[][] rows, int rowCount, int column, byte type) throws IOException {
+        switch (type) {
+            case BinaryFrameWriter.TYPE_INT:
+                ensureCapacity(rowCount * 4);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    writeInt(value == null ? 0 : (Integer) value);
+                }
+                break;
+            case BinaryFrameWriter.TYPE_LONG:
+                ensureCapacity(rowCount * 8);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    writeLong(value == null ? 0 : (Long) value);
+                }
+                break;
+            case BinaryFrameWriter.TYPE_FLOAT:
+                ensureCapacity(rowCount * 4);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    writeInt(value == null ? 0 : Float.floatToRawIntBits((Float) value));
+                }
+                break;
+            case BinaryFrameWriter.TYPE_DOUBLE:
+                ensureCapacity(rowCount * 8);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    writeLong(value == null ? 0 : Double.doubleToRawLongBits((Double) value));
+                }
+                break;
+            case BinaryFrameWriter.TYPE_BOOL:
+                ensureCapacity(rowCount);
+                for (int row = 0; row < rowCount; row++) {
+                    buffer[position++] = (byte) (Boolean.TRUE.equals(rows[row][column]) ? 1 : 0);
+                }
+                break;
+            case BinaryFrameWriter.TYPE_STRING:
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    if (value != null) {
+                        writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                break;
+            case BinaryFrameWriter.TYPE_OBJECT:
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = rows[row][column];
+                    if (value != null) {
+                        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+                            objectOutputStream.writeObject(value);
+                        }
+                        writeBytes(byteArrayOutputStream.toByteArray());
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Determines the type of a column from the classes of its non-null values.
+     */
+    private static byte typeOf(Object[][] rows, int rowCount, int column) {
+        Class<?> valueClass = null;
+        for (int row = 0; row < rowCount; row++) {
+            Object value = rows[row][column];
+            if (value == null) {
+                continue;
+            }
+            if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                return BinaryFrameWriter.TYPE_OBJECT;
+            }
+        }
+        if (valueClass == null) {
+            return BinaryFrameWriter.TYPE_NULL;
+        } else if (valueClass == String.class) {
+            return BinaryFrameWriter.TYPE_STRING;
+        } else if (valueClass == Integer.class) {
+            return BinaryFrameWriter.TYPE_INT;
+        } else if (valueClass == Long.class) {
+            return BinaryFrameWriter.TYPE_LONG;
+        } else if (valueClass == Float.class) {
+            return BinaryFrameWriter.TYPE_FLOAT;
+        } else if (valueClass == Double.class) {
+            return BinaryFrameWriter.TYPE_DOUBLE;
+        } else if (valueClass == Boolean.class) {
+            return BinaryFrameWriter.TYPE_BOOL;
+        }
+        return BinaryFrameWriter.TYPE_OBJECT;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length + 4);
+        writeInt(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeShort(int value) {
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void ensureCapacity(int required) {
+        if (position + required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + required));
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses key value payloads using the JDK {@link Deflater} and {@link Inflater}.
+ * Deflaters, inflaters and their working buffers are pooled, so that compressing or decompressing a payload only
+ * allocates the resulting array. The pool is shared by all threads and keeps at most one set per processor, so that
+ * short lived threads, such as virtual threads, reuse the pooled sets rather than each creating their own, and sets
+ * created beyond the pool while it is drained are ended once used. Decompressed payloads are bounded by a maximum
+ * size, so that a small payload cannot inflate into an unbounded buffer, and a working buffer that grew beyond
+ * {@value #RETAINED_BUFFER_SIZE} bytes for a large payload is not kept in the pool.
+ */
+public class CompressionUtil {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int GZIP_FLAG_HCRC = 2;
+    private static final int GZIP_FLAG_EXTRA = 4;
+    private static final int GZIP_FLAG_NAME = 8;
+    private static final int GZIP_FLAG_COMMENT = 16;
+    private static final int ZLIB_DEFLATE_METHOD = 8;
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final int RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes a payload decompresses into.
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+    private static final BlockingQueue<Codec> CODECS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private CompressionUtil() {
+    }
+
+    /**
+     * Supported compression types.
+     */
+    public enum Compression {
+        NONE, DEFLATE, GZIP
+    }
+
+    /**
+     * Parses the compression type given in the mapping configuration.
+     *
+     * @param compression the configured value, either `none`, `deflate` or `gzip`.
+     * @return the compression type.
+     * @throws IllegalArgumentException if the value is not one of the supported compressions.
+     */
+    public static Compression parse(String compression) {
+        if (compression == null) {
+            return Compression.NONE;
+        }
+        for (Compression value : Compression.values()) {
+            if (value.name().equalsIgnoreCase(compression.trim())) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported compression '" + compression + "', expected 'none', " +
+                "'deflate' or 'gzip'.");
+    }
+
+    /**
+     * Detects the compression of a payload from its magic bytes. The deflate format is recognised through its
+     * zlib header, which never clashes with the `0xACED` magic of Java serialization.
+     *
+     * @param data the payload.
+     * @return the compression of the payload, or {@link Compression#NONE} if it is not compressed.
+     */
+    public static Compression detect(byte[] data) {
+        if (data.length < 2) {
+            return Compression.NONE;
+        }
+        int first = data[0] & 0xff;
+        int second = data[1] & 0xff;
+        if (first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2) {
+            return Compression.GZIP;
+        }
+        if ((first & 0x0f) == ZLIB_DEFLATE_METHOD && (first >> 4) <= 7 && ((first << 8) | second) % 31 == 0) {
+            return Compression.DEFLATE;
+        }
+        return Compression.NONE;
+    }
+
+    /**
+     * Compresses the given bytes.
+     *
+     * @param compression the compression to apply.
+     * @param data        array holding the bytes to compress.
+     * @param offset      offset of the first byte to compress.
+     * @param length      number of bytes to compress.
+     * @return a new array holding the compressed bytes.
+     */
+    public static byte[] compress(Compression compression, byte[] data, int offset, int length) {
+        if (compression == Compression.NONE) {
+            return Arrays.copyOfRange(data, offset, offset + length);
+        }
+        Codec codec = acquire();
+        try {
+            return codec.deflate(data, offset, length, compression == Compression.GZIP);
+        } finally {
+            release(codec);
+        }
+    }
+
+    /**
+     * Decompresses the given payload, allowing at most {@link #DEFAULT_MAX_DECOMPRESSED_SIZE} decompressed bytes.
+     *
+     * @param compression the compression of the payload.
+     * @param data        the compressed payload.
+     * @return a heap buffer holding the decompressed bytes between its position and limit.
+     * @throws DataFormatException if the payload is not a valid compressed payload, or is too large.
+     * @see #decompress(Compression, byte[], int)
+     */
+    public static ByteBuffer decompress(Compression compression, byte[] data) throws DataFormatException {
+        return decompress(compression, data, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    /**
+     * Decompresses the given payload.
+     *
+     * @param compression the compression of the payload.
+     * @param data        the compressed payload.
+     * @param maxSize     maximum number of bytes the payload is allowed to decompress into.
+     * @return a heap buffer holding the decompressed bytes, which is owned by the caller.
+     * @throws DataFormatException if the payload is not a valid compressed payload, or decompresses into more than
+     *                             the maximum number of bytes.
+     */
+    public static ByteBuffer decompress(Compression compression, byte[] data, int maxSize)
+            throws DataFormatException {
+        if (compression == Compression.NONE) {
+            return ByteBuffer.wrap(data);
+        }
+        Codec codec = acquire();
+        try {
+            return ByteBuffer.wrap(compression == Compression.GZIP ? codec.inflateGzip(data, maxSize) :
+                    codec.inflate(data, 0, data.length, false, maxSize));
+        } finally {
+            release(codec);
+        }
+    }
+
+    private static Codec acquire() {
+        Codec codec = CODECS.poll();
+        return codec != null ? codec : new Codec();
+    }
+
+    private static void release(Codec codec) {
+        codec.releaseOversizedBuffer();
+        if (!CODECS.offer(codec)) {
+            codec.end();
+        }
+    }
+
+    /**
+     * Pooled deflaters, inflaters and buffer, used by one thread at a time.
+     */
+    private static class Codec {
+        private final Deflater zlibDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+        private final Deflater rawDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final Inflater zlibInflater = new Inflater(false);
+        private final Inflater rawInflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+        private byte[] deflate(byte[] data, int offset, int length, boolean gzip) {
+            Deflater deflater = gzip ? rawDeflater : zlibDeflater;
+            deflater.reset();
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            int position = 0;
+            if (gzip) {
+                buffer[0] = (byte) GZIP_MAGIC_1;
+                buffer[1] = (byte) GZIP_MAGIC_2;
+                buffer[2] = Deflater.DEFLATED;
+                Arrays.fill(buffer, 3, GZIP_HEADER_SIZE, (byte) 0);
+                position = GZIP_HEADER_SIZE;
+            }
+            while (!deflater.finished()) {
+                if (position == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                position += deflater.deflate(buffer, position, buffer.length - position);
+            }
+            if (gzip) {
+                if (position + GZIP_TRAILER_SIZE > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, position + GZIP_TRAILER_SIZE);
+                }
+                crc.reset();
+                crc.update(data, offset, length);
+                writeIntLE(buffer, position, (int) crc.getValue());
+                writeIntLE(buffer, position + 4, length);
+                position += GZIP_TRAILER_SIZE;
+            }
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private byte[] inflate(byte[] data, int offset, int length, boolean raw, int maxSize)
+                throws DataFormatException {
+            Inflater inflater = raw ? rawInflater : zlibInflater;
+            inflater.reset();
+            inflater.setInput(data, offset, length);
+            int position = 0;
+            while (!inflater.finished()) {
+                if (position == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, maxSize + 1L));
+                }
+                int inflated = inflater.inflate(buffer, position, buffer.length - position);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed payload");
+                }
+                position += inflated;
+                if (position > maxSize) {
+                    throw new DataFormatException("Compressed payload decompresses into more than the maximum of " +
+                            maxSize + " bytes");
+                }
+            }
+            return Arrays.copyOf(buffer, position);
+        }
+
+        /**
+         * Replaces a working buffer that grew for a large payload, so that the pool does not keep it.
+         */
+        private void releaseOversizedBuffer() {
+            if (buffer.length > RETAINED_BUFFER_SIZE) {
+                buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+
+        /**
+         * Releases the native resources of the deflaters and inflaters of a codec that is not pooled.
+         */
+        private void end() {
+            zlibDeflater.end();
+            rawDeflater.end();
+            zlibInflater.end();
+            rawInflater.end();
+        }
+
+        private byte[] inflateGzip(byte[] data, int maxSize) throws DataFormatException {
+            if (data.length < GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE || data[2] != Deflater.DEFLATED) {
+                throw new DataFormatException("Invalid gzip header");
+            }
+            int flags = data[3] & 0xff;
+            int offset = GZIP_HEADER_SIZE;
+            if ((flags & GZIP_FLAG_EXTRA) != 0) {
+                offset += 2 + ((data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8);
+            }
+            if ((flags & GZIP_FLAG_NAME) != 0) {
+                offset = skipZeroTerminated(data, offset);
+            }
+            if ((flags & GZIP_FLAG_COMMENT) != 0) {
+                offset = skipZeroTerminated(data, offset);
+            }
+            if ((flags & GZIP_FLAG_HCRC) != 0) {
+                offset += 2;
+            }
+            int length = data.length - offset - GZIP_TRAILER_SIZE;
+            if (length < 0) {
+                throw new DataFormatException("Invalid gzip header");
+            }
+            byte[] inflated = inflate(data, offset, length, true, maxSize);
+            crc.reset();
+            crc.update(inflated, 0, inflated.length);
+            if ((int) crc.getValue() != readIntLE(data, data.length - GZIP_TRAILER_SIZE)) {
+                throw new DataFormatException("Corrupt gzip payload, CRC mismatch");
+            }
+            return inflated;
+        }
+
+        private static int skipZeroTerminated(byte[] data, int offset) throws DataFormatException {
+            while (offset < data.length && data[offset] != 0) {
+                offset++;
+            }
+            if (offset == data.length) {
+                throw new DataFormatException("Invalid gzip header");
+            }
+            return offset + 1;
+        }
+
+        private static void writeIntLE(byte[] buffer, int offset, int value) {
+            buffer[offset] = (byte) value;
+            buffer[offset + 1] = (byte) (value >>> 8);
+            buffer[offset + 2] = (byte) (value >>> 16);
+            buffer[offset + 3] = (byte) (value >>> 24);
+        }
+
+        private static int readIntLE(byte[] buffer, int offset) {
+            return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8 |
+                    (buffer[offset + 2] & 0xff) << 16 | (buffer[offset + 3] & 0xff) << 24;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Immutable index from keys to integer values, built once when the mapper is initialised.
+ * The hash seed and table size are chosen so that every key lands in its own slot, hence a lookup costs one hash
+ * computation and at most one key comparison. Keys can be looked up as strings, as character ranges or as UTF-8
+ * encoded byte ranges without materialising a {@link String}.
+ * <p>
+ * An index can optionally ignore the case of keys. Such an index still looks up keys as they are first, and only
+ * when a key is not found, looks up its lower case form in a second index of the lower case keys.
+ */
+public class KeyIndex {
+
+    private static final int FNV_PRIME = 0x01000193;
+    private static final int MAX_SEED_ATTEMPTS = 64;
+
+    private final String[] keys;
+    private final byte[][] keyBytes;
+    private final int[] values;
+    private final int mask;
+    private final int seed;
+    private final KeyIndex lowerCaseIndex;
+
+    /**
+     * Builds an index where each key maps to its position in the given array.
+     *
+     * @param keys the keys to index, which should be unique.
+     */
+    public KeyIndex(String[] keys) {
+        this(keys, identity(keys.length));
+    }
+
+    /**
+     * Builds an index where each key maps to the value at the same position. When a key is repeated the first
+     * occurrence wins.
+     *
+     * @param keys   the keys to index.
+     * @param values the values of the keys.
+     */
+    public KeyIndex(String[] keys, int[] values) {
+        this(keys, values, false);
+    }
+
+    /**
+     * Builds an index where each key maps to the value at the same position. When a key is repeated the first
+     * occurrence wins.
+     *
+     * @param keys       the keys to index.
+     * @param values     the values of the keys.
+     * @param ignoreCase whether keys that are not found are looked up again ignoring their case.
+     */
+    public KeyIndex(String[] keys, int[] values, boolean ignoreCase) {
+        if (ignoreCase) {
+            String[] lowerCaseKeys = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                lowerCaseKeys[i] = keys[i].toLowerCase(Locale.ROOT);
+            }
+            this.lowerCaseIndex = new KeyIndex(lowerCaseKeys, values, false);
+        } else {
+            this.lowerCaseIndex = null;
+        }
+        byte[][] encodedKeys = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            encodedKeys[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+        int size = Integer.highestOneBit(Math.max(1, keys.length) * 2 - 1) << 1;
+        while (true) {
+            for (int attempt = 0; attempt < MAX_SEED_ATTEMPTS; attempt++) {
+                int candidateSeed = 0x811c9dc5 + attempt * 0x9e3779b9;
+                int[] slots = place(encodedKeys, candidateSeed, size - 1);
+                if (slots != null) {
+                    this.mask = size - 1;
+                    this.seed = candidateSeed;
+                    this.keys = new String[size];
+                    this.keyBytes = new byte[size][];
+                    this.values = new int[size];
+                    for (int i = keys.length - 1; i >= 0; i--) {
+                        this.keys[slots[i]] = keys[i];
+                        this.keyBytes[slots[i]] = encodedKeys[i];
+                        this.values[slots[i]] = values[i];
+                    }
+                    return;
+                }
+            }
+            size <<= 1;
+        }
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the value of the key, or -1 if the key is not indexed.
+     */
+    public int get(String key) {
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * @param chars the characters holding the key.
+     * @param start index of the first character of the key.
+     * @param end   index after the last character of the key.
+     * @return the value of the key, or -1 if the key is not indexed.
+     */
+    public int get(CharSequence chars, int start, int end) {
+        int value = find(chars, start, end);
+        if (value >= 0 || lowerCaseIndex == null) {
+            return value;
+        }
+        return lowerCaseIndex.get(chars.subSequence(start, end).toString().toLowerCase(Locale.ROOT));
+    }
+
+    private int find(CharSequence chars, int start, int end) {
+        int slot = mix(hash(chars, start, end, seed)) & mask;
+        String key = keys[slot];
+        if (key == null || key.length() != end - start) {
+            return -1;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != chars.charAt(start + i)) {
+                return -1;
+            }
+        }
+        return values[slot];
+    }
+
+    /**
+     * @param bytes  array holding the UTF-8 encoded key.
+     * @param offset offset of the first byte of the key.
+     * @param length length of the key in bytes.
+     * @return the value of the key, or -1 if the key is not indexed.
+     */
+    public int get(byte[] bytes, int offset, int length) {
+        int value = find(bytes, offset, length);
+        if (value >= 0 || lowerCaseIndex == null) {
+            return value;
+        }
+        return lowerCaseIndex.get(new String(bytes, offset, length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT));
+    }
+
+    private int find(byte[] bytes, int offset, int length) {
+        int hash = seed;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+        }
+        int slot = mix(hash) & mask;
+        byte[] key = keyBytes[slot];
+        if (key == null || key.length != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != bytes[offset + i]) {
+                return -1;
+            }
+        }
+        return values[slot];
+    }
+
+    /**
+     * Looks up a key using absolute reads, without changing the position of the buffer.
+     *
+     * @param buffer buffer holding the UTF-8 encoded key.
+     * @param offset absolute offset of the first byte of the key.
+     * @param length length of the key in bytes.
+     * @return the value of the key, or -1 if the key is not indexed.
+     */
+    public int get(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray()) {
+            return get(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+        int value = find(buffer, offset, length);
+        if (value >= 0 || lowerCaseIndex == null) {
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return lowerCaseIndex.get(new String(bytes, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT));
+    }
+
+    private int find(ByteBuffer buffer, int offset, int length) {
+        int hash = seed;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (buffer.get(i) & 0xff)) * FNV_PRIME;
+        }
+        int slot = mix(hash) & mask;
+        byte[] key = keyBytes[slot];
+        if (key == null || key.length != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != buffer.get(offset + i)) {
+                return -1;
+            }
+        }
+        return values[slot];
+    }
+
+    private static int[] place(byte[][] encodedKeys, int seed, int mask) {
+        byte[][] taken = new byte[mask + 1][];
+        int[] slots = new int[encodedKeys.length];
+        for (int i = 0; i < encodedKeys.length; i++) {
+            byte[] key = encodedKeys[i];
+            int hash = seed;
+            for (byte b : key) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+            int slot = mix(hash) & mask;
+            if (taken[slot] != null && !Arrays.equals(taken[slot], key)) {
+                return null;
+            }
+            if (taken[slot] == null) {
+                taken[slot] = key;
+            }
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of the given characters, so that character and byte lookups agree.
+     */
+    private static int hash(CharSequence chars, int start, int end, int seed) {
+        int hash = seed;
+        for (int i = start; i < end; i++) {
+            int c = chars.charAt(i);
+            if (c < 0x80) {
+                hash = (hash ^ c) * FNV_PRIME;
+            } else if (c < 0x800) {
+                hash = (hash ^ (0xc0 | c >> 6)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3f)) * FNV_PRIME;
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < end &&
+                    Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint((char) c, chars.charAt(++i));
+                hash = (hash ^ (0xf0 | codePoint >> 18)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >> 12 & 0x3f)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint >> 6 & 0x3f)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | codePoint & 0x3f)) * FNV_PRIME;
+            } else {
+                hash = (hash ^ (0xe0 | c >> 12)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c >> 6 & 0x3f)) * FNV_PRIME;
+                hash = (hash ^ (0x80 | c & 0x3f)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] identity(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.Map;
+
+/**
+ * Key value record that holds primitive values unboxed, which producers in the same JVM can pass to the
+ * `keyvalue` source mapper instead of a {@link Map}. The mapper asks for the type of each mapped key, and reads a
+ * value whose type matches the mapped attribute through the typed getter of that type, so that the value is not
+ * boxed before it is placed in the event. Values of other types are read with {@link #get(String)} and converted
+ * as the values of a map would be.
+ */
+public interface KeyValueRecord {
+
+    /**
+     * @param key the key.
+     * @return true if the record has a non null value for the key.
+     */
+    boolean has(String key);
+
+    /**
+     * @param key the key.
+     * @return the type of the value of the key, or null if the record does not have a value for the key.
+     */
+    Attribute.Type getType(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#INT}.
+     * @return the value of the key.
+     */
+    int getInt(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#LONG}.
+     * @return the value of the key.
+     */
+    long getLong(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#FLOAT}.
+     * @return the value of the key.
+     */
+    float getFloat(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#DOUBLE}.
+     * @return the value of the key.
+     */
+    double getDouble(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#BOOL}.
+     * @return the value of the key.
+     */
+    boolean getBoolean(String key);
+
+    /**
+     * @param key a key whose value is of type {@link Attribute.Type#STRING}.
+     * @return the value of the key.
+     */
+    String getString(String key);
+
+    /**
+     * @param key the key.
+     * @return the value of the key of any type, boxing primitive values, or null if the record does not have a
+     * value for the key.
+     */
+    Object get(String key);
+
+    /**
+     * @return a new map holding the keys and boxed values of the record, used by mappings that need to look at
+     * all the keys of a message.
+     */
+    Map<String, Object> toMap();
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the last values seen per entity key, used for delta encoding. When the cache is full the least
+ * recently used key is evicted, so that the next event of that key is published, or has to be received, in full.
+ * The cache is held in memory only, hence after a restart every key starts again with a full event. A receiver
+ * whose cache lost a key cannot rebuild the deltas of the key, and rejects them until the next full event of the
+ * key, which publishers send after evicting the key, and periodically when they are configured to.
+ */
+public class LastValueCache {
+
+    private final LinkedHashMap<Object, Object[]> values;
+
+    /**
+     * @param maxSize maximum number of keys to retain.
+     */
+    public LastValueCache(int maxSize) {
+        this.values = new LinkedHashMap<Object, Object[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object[]> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Replaces the last values of a key.
+     *
+     * @param key       the entity key.
+     * @param newValues the new values of the key, which should not be modified afterwards.
+     * @return the previous values of the key, or null if the key is not cached.
+     */
+    public synchronized Object[] put(Object key, Object[] newValues) {
+        return values.put(key, newValues);
+    }
+
+    /**
+     * Merges a partial update into the last values of a key. Values that are not present in the update keep their
+     * last value. An update of a key that is not cached is only accepted when it has a value for every position.
+     *
+     * @param key     the entity key.
+     * @param update  the values of the update.
+     * @param present whether the update has a value for each position.
+     * @return the merged values, which are also cached as the last values of the key, or null if the key is not
+     * cached and the update is partial.
+     */
+    public synchronized Object[] merge(Object key, Object[] update, boolean[] present) {
+        Object[] previous = values.get(key);
+        for (int i = 0; i < update.length; i++) {
+            if (!present[i]) {
+                if (previous == null) {
+                    return null;
+                }
+                update[i] = previous[i];
+            }
+        }
+        values.put(key, update);
+        return update;
+    }
+
+    /**
+     * Removes all keys, so that the next event of every key is published, or has to be received, in full.
+     */
+    public synchronized void clear() {
+        values.clear();
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
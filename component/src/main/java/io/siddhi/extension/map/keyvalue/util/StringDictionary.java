@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dictionary of string values that are written to binary frames as entry numbers instead of text. Entries are
+ * added as new values are encoded, and each frame carries the entries added since the previous frame, so that the
+ * dictionary is sent in-band and incrementally. Every given number of frames all entries are sent again, so that
+ * readers that joined late or missed a frame catch up. Once the dictionary is full, new values are written as text.
+ * <p>
+ * Each dictionary has a random id, so that readers do not resolve entry numbers of a restarted writer against the
+ * entries of its previous run. The dictionary is not thread safe, and frames using it have to be published in the
+ * order they are written.
+ */
+public class StringDictionary {
+
+    public static final int MAX_SIZE_LIMIT = 1 << 20;
+
+    private final long id = ThreadLocalRandom.current().nextLong();
+    private final int maxSize;
+    private final int syncInterval;
+    private final Map<String, Integer> entryNumbers = new HashMap<>();
+    private final List<String> entries = new ArrayList<>();
+    private int sentSize;
+    private int framesSinceSync;
+
+    /**
+     * @param maxSize      maximum number of entries, at most {@link #MAX_SIZE_LIMIT}.
+     * @param syncInterval number of frames after which all entries are sent again.
+     */
+    public StringDictionary(int maxSize, int syncInterval) {
+        this.maxSize = maxSize;
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * @param value the value to encode.
+     * @return the entry number of the value, or -1 if the value is not in the dictionary and the dictionary is full.
+     */
+    public int encode(String value) {
+        Integer entryNumber = entryNumbers.get(value);
+        if (entryNumber != null) {
+            return entryNumber;
+        } else if (entries.size() >= maxSize) {
+            return -1;
+        }
+        entries.add(value);
+        entryNumbers.put(value, entries.size() - 1);
+        return entries.size() - 1;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    String get(int entryNumber) {
+        return entries.get(entryNumber);
+    }
+
+    /**
+     * Marks all entries as sent.
+     *
+     * @return the number of the first entry to send with the next frame, which is 0 when all entries are due to be
+     * sent again.
+     */
+    int takeUnsent() {
+        int base = sentSize;
+        if (++framesSinceSync >= syncInterval) {
+            framesSinceSync = 0;
+            base = 0;
+        }
+        sentSize = entries.size();
+        return base;
+    }
+}
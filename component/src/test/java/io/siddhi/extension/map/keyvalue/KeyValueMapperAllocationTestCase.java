@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.transport.InMemoryBroker;
+import io.siddhi.extension.map.keyvalue.util.ArrayKeyValueRecord;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks the bytes allocated per mapped event on the hot paths of the mappers against the budgets in
+ * {@code allocation-budgets.properties}. Events are published and consumed on the test thread, so that all the
+ * allocations of a path are attributed to that thread. Each path is warmed up before it is measured, so that the
+ * measurement reflects compiled code. The budgets cover the allocations of the mappers only: each path is compared
+ * with a baseline measured in the same run by sending equivalent prebuilt events with the passThrough mapper.
+ */
+public class KeyValueMapperAllocationTestCase {
+
+    private static final Logger log = LogManager.getLogger(KeyValueMapperAllocationTestCase.class);
+    private static final String BUDGETS = "/allocation-budgets.properties";
+    private static final int WARM_UP_EVENTS = 50000;
+    private static final int MEASURED_EVENTS = 100000;
+    private static final int FRAME_RECORDS = 100;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private Properties budgets;
+    private AtomicLong count = new AtomicLong();
+
+    @BeforeClass
+    public void loadBudgets() throws IOException {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean) ||
+                !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Thread allocation accounting is not supported by this JVM");
+        }
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        budgets = new Properties();
+        try (InputStream inputStream = getClass().getResourceAsStream(BUDGETS)) {
+            budgets.load(inputStream);
+        }
+    }
+
+    @BeforeMethod
+    public void init() {
+        count.set(0);
+    }
+
+    @Test
+    public void sourceDefaultMappingAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Source-Default-Mapping-Allocation-Test");
+        long baseline = measureSourceBaseline(new Event(-1, new Object[]{"WSO2", 55.6f, 100L}), 1);
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='keyvalue')");
+        HashMap<String, Object> msg = new HashMap<>();
+        msg.put("symbol", "WSO2");
+        msg.put("price", 55.6f);
+        msg.put("volume", 100L);
+        try {
+            assertWithinBudget("source.default.mapping", () -> InMemoryBroker.publish("stock", msg), 1, baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void sourceCustomMappingAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Source-Custom-Mapping-Allocation-Test");
+        long baseline = measureSourceBaseline(new Event(-1, new Object[]{"WSO2", 55.6f, 100L}), 1);
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='keyvalue', " +
+                "@attributes(symbol = 's', price = 'p', volume = 'v'))");
+        HashMap<String, Object> msg = new HashMap<>();
+        msg.put("s", "WSO2");
+        msg.put("p", 55.6f);
+        msg.put("v", 100L);
+        try {
+            assertWithinBudget("source.custom.mapping", () -> InMemoryBroker.publish("stock", msg), 1, baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void sourceRecordAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Source-Record-Allocation-Test");
+        long baseline = measureSourceBaseline(new Event(-1, new Object[]{"WSO2", 55.6f, 100L}), 1);
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='keyvalue')");
+        ArrayKeyValueRecord record = new ArrayKeyValueRecord("symbol", "price", "volume");
+        try {
+            assertWithinBudget("source.record", () -> {
+                record.clear();
+                record.setString("symbol", "WSO2").setFloat("price", 55.6f).setLong("volume", 100L);
+                InMemoryBroker.publish("stock", record);
+            }, 1, baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void sourceSerializedMapAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Source-Serialized-Map-Allocation-Test");
+        long baseline = measureSourceBaseline(new Event(-1, new Object[]{"WSO2", 55.6f, 100L}), 1);
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='keyvalue')");
+        HashMap<String, Object> msg = new HashMap<>();
+        msg.put("symbol", "WSO2");
+        msg.put("price", 55.6f);
+        msg.put("volume", 100L);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(msg);
+        }
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+        try {
+            assertWithinBudget("source.serialized.map", () -> InMemoryBroker.publish("stock", bytes), 1, baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void sourceBinaryFrameAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Source-Binary-Frame-Allocation-Test");
+        Event[] events = new Event[FRAME_RECORDS];
+        for (int i = 0; i < FRAME_RECORDS; i++) {
+            events[i] = new Event(-1, new Object[]{"WSO2", 55.6f, (long) i});
+        }
+        long baseline = measureSourceBaseline(events, FRAME_RECORDS);
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='keyvalue')");
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"symbol", "price", "volume"});
+        BinaryFrameWriter writer = new BinaryFrameWriter();
+        writer.startFrame();
+        for (int i = 0; i < FRAME_RECORDS; i++) {
+            writer.startRecord();
+            writer.writeField(keys[0], "WSO2");
+            writer.writeField(keys[1], 55.6f);
+            writer.writeField(keys[2], (long) i);
+            writer.endRecord();
+        }
+        writer.endFrame();
+        byte[] frame = writer.toByteArray();
+        try {
+            assertWithinBudget("source.binary.frame", () -> InMemoryBroker.publish("stock", frame), FRAME_RECORDS,
+                    baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void sinkDefaultMappingAllocationTest() throws Exception {
+        log.info("KeyValueMapper-Sink-Default-Mapping-Allocation-Test");
+        long baseline = measureSink("@map(type='passThrough')", null, 0);
+        measureSink("@map(type='keyvalue')", "sink.default.mapping", baseline);
+    }
+
+    /**
+     * Measures the bytes allocated per event published to the transport by a sink with the given mapping.
+     *
+     * @param map      the map annotation of the sink.
+     * @param budget   name of the budget of the path, or null to only measure it.
+     * @param baseline bytes per event of the baseline of the path, when a budget is given.
+     * @return the bytes allocated per event.
+     */
+    private long measureSink(String map, String budget, long baseline) throws Exception {
+        InMemoryBroker.Subscriber subscriber = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                count.incrementAndGet();
+            }
+
+            @Override
+            public String getTopic() {
+                return "stock";
+            }
+        };
+        InMemoryBroker.subscribe(subscriber);
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='stock', " + map + ") " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("FooStream");
+        siddhiAppRuntime.start();
+        try {
+            Publisher publisher = () -> inputHandler.send(new Object[]{"WSO2", 55.6f, 100L});
+            if (budget == null) {
+                return measure(publisher, 1);
+            }
+            return assertWithinBudget(budget, publisher, 1, baseline);
+        } finally {
+            siddhiAppRuntime.shutdown();
+            InMemoryBroker.unsubscribe(subscriber);
+        }
+    }
+
+    /**
+     * Measures the bytes allocated per event by a source with the passThrough mapper receiving the given message.
+     *
+     * @param message       prebuilt event or events equivalent to the messages of the measured path.
+     * @param eventsPerCall number of events in the message.
+     * @return the bytes allocated per event.
+     */
+    private long measureSourceBaseline(Object message, int eventsPerCall) throws Exception {
+        SiddhiAppRuntime siddhiAppRuntime = createSourceApp("@map(type='passThrough')");
+        try {
+            return measure(() -> InMemoryBroker.publish("stock", message), eventsPerCall);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    private SiddhiAppRuntime createSourceApp(String map) {
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', " + map + ") " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    /**
+     * Measures the bytes a path allocates per event, and asserts that they exceed its baseline by no more than its
+     * budget.
+     *
+     * @param budget        name of the budget of the path.
+     * @param publisher     publishes a message.
+     * @param eventsPerCall number of events mapped from each published message.
+     * @param baseline      bytes per event of the baseline of the path.
+     * @return the bytes allocated per event.
+     */
+    private long assertWithinBudget(String budget, Publisher publisher, int eventsPerCall, long baseline)
+            throws Exception {
+        long bytesPerEvent = measure(publisher, eventsPerCall);
+        long maxBytesPerEvent = Long.parseLong(budgets.getProperty(budget));
+        log.info("Allocated " + bytesPerEvent + " bytes per event for " + budget + ", " +
+                (bytesPerEvent - baseline) + " more than the baseline of " + baseline + ", within a budget of " +
+                maxBytesPerEvent);
+
+        AssertJUnit.assertTrue("Allocated " + bytesPerEvent + " bytes per event for " + budget + ", " +
+                        (bytesPerEvent - baseline) + " more than the baseline of " + baseline +
+                        ", which exceeds the budget of " + maxBytesPerEvent,
+                bytesPerEvent - baseline <= maxBytesPerEvent);
+        return bytesPerEvent;
+    }
+
+    /**
+     * Warms up a path, then measures the bytes it allocates per event.
+     *
+     * @param publisher     publishes a message.
+     * @param eventsPerCall number of events mapped from each published message.
+     * @return the bytes allocated per event.
+     */
+    private long measure(Publisher publisher, int eventsPerCall) throws Exception {
+        count.set(0);
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP_EVENTS / eventsPerCall; i++) {
+            publisher.publish();
+        }
+        int calls = MEASURED_EVENTS / eventsPerCall;
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            publisher.publish();
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        AssertJUnit.assertEquals("Number of events", (long) (WARM_UP_EVENTS / eventsPerCall + calls) * eventsPerCall,
+                count.get());
+        return allocated / ((long) calls * eventsPerCall);
+    }
+
+    private interface Publisher {
+
+        void publish() throws Exception;
+    }
+}
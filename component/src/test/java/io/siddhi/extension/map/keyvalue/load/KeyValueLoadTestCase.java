@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.load;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.util.transport.InMemoryBroker;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameReader;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameWriter;
+import io.siddhi.extension.map.keyvalue.util.ClassAllowList;
+import io.siddhi.extension.map.keyvalue.util.ColumnarFrameReader;
+import io.siddhi.extension.map.keyvalue.util.CompressionUtil;
+import io.siddhi.extension.map.keyvalue.util.KeyIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.DataFormatException;
+
+/**
+ * Drives a `keyvalue` source to `keyvalue` sink pipeline over the in-memory transport at a configured rate, and
+ * reports its sustained throughput and end-to-end latency percentiles. Each event carries the time it was scheduled
+ * to be sent, and its latency is measured from that time to its arrival at the sink transport, so that stalls of the
+ * pipeline are reflected in the latency of the events that were due while it stalled.
+ * <p>
+ * The test is not part of the regular build. It runs in its own suite, {@code testng-load.xml}, which the
+ * {@code load-test} profile selects when the {@code keyvalue.load} property is set, as in
+ * {@code mvn test -Dkeyvalue.load -Dkeyvalue.load.rate=100000}. The load is configured with system properties:
+ * <ul>
+ * <li>{@code keyvalue.load.rate}: events per second, where 0 sends as fast as possible. Default 0.</li>
+ * <li>{@code keyvalue.load.duration}: measured seconds. Default 2.</li>
+ * <li>{@code keyvalue.load.warmup}: seconds of load sent before measuring. Default 1.</li>
+ * <li>{@code keyvalue.load.fields}: payload fields per event besides the send time, at least 3. Default 3.</li>
+ * <li>{@code keyvalue.load.batch}: events per message. Messages of more than one event are sent as binary
+ * frames, and single events as maps. Default 1.</li>
+ * <li>{@code keyvalue.load.source.options} and {@code keyvalue.load.sink.options}: additional options of the source
+ * and sink mappers, such as {@code output.format='binary'}. The sink may use any output format and compression,
+ * as long as it publishes the send time under its own key, and as the last pair of a text message. Default
+ * none.</li>
+ * <li>{@code keyvalue.load.report}: file the report is written to. Default
+ * {@code target/keyvalue-load-report.txt}.</li>
+ * </ul>
+ */
+public class KeyValueLoadTestCase {
+
+    private static final Logger log = LogManager.getLogger(KeyValueLoadTestCase.class);
+    private static final String IN_TOPIC = "keyvalue-load-in";
+    private static final String OUT_TOPIC = "keyvalue-load-out";
+    private static final String SENT_KEY = "sent";
+
+    private final LogLinearHistogram histogram = new LogLinearHistogram();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicReference<RuntimeException> receiveFailure = new AtomicReference<>();
+    private final BinaryFrameReader frameReader = new BinaryFrameReader(new KeyIndex(new String[]{SENT_KEY}));
+    private final ColumnarFrameReader columnarFrameReader =
+            new ColumnarFrameReader(new KeyIndex(new String[]{SENT_KEY}));
+    private final ClassAllowList classAllowList = new ClassAllowList();
+
+    @Test
+    public void keyvalueLoadTest() throws Exception {
+        log.info("KeyValue-Load-Test");
+        long rate = Long.getLong("keyvalue.load.rate", 0);
+        long durationNanos = Long.getLong("keyvalue.load.duration", 2) * 1_000_000_000L;
+        long warmUpNanos = Long.getLong("keyvalue.load.warmup", 1) * 1_000_000_000L;
+        int fieldCount = Math.max(3, Integer.getInteger("keyvalue.load.fields", 3));
+        int batchSize = Math.max(1, Integer.getInteger("keyvalue.load.batch", 1));
+        String sourceOptions = System.getProperty("keyvalue.load.source.options", "");
+        String sinkOptions = System.getProperty("keyvalue.load.sink.options", "");
+        File report = new File(System.getProperty("keyvalue.load.report", "target/keyvalue-load-report.txt"));
+
+        String[] keys = new String[fieldCount + 1];
+        StringBuilder attributes = new StringBuilder("symbol string, price double, volume long");
+        keys[0] = "symbol";
+        keys[1] = "price";
+        keys[2] = "volume";
+        for (int i = 3; i < fieldCount; i++) {
+            keys[i] = "field" + i;
+            attributes.append(", ").append(keys[i]).append(" double");
+        }
+        keys[fieldCount] = SENT_KEY;
+        attributes.append(", ").append(SENT_KEY).append(" long");
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='" + IN_TOPIC + "', @map(type='keyvalue'" +
+                (sourceOptions.isEmpty() ? "" : ", " + sourceOptions) + ")) " +
+                "define stream InStream (" + attributes + "); " +
+                "@sink(type='inMemory', topic='" + OUT_TOPIC + "', @map(type='keyvalue'" +
+                (sinkOptions.isEmpty() ? "" : ", " + sinkOptions) + ")) " +
+                "define stream OutStream (" + attributes + "); ";
+        String query = "" +
+                "from InStream " +
+                "select * " +
+                "insert into OutStream; ";
+
+        InMemoryBroker.Subscriber subscriber = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                try {
+                    receive(msg);
+                } catch (RuntimeException e) {
+                    receiveFailure.compareAndSet(null, e);
+                }
+            }
+
+            @Override
+            public String getTopic() {
+                return OUT_TOPIC;
+            }
+        };
+        InMemoryBroker.subscribe(subscriber);
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        siddhiAppRuntime.start();
+        try {
+            Generator generator = new Generator(keys, batchSize, rate);
+            generator.run(warmUpNanos);
+            histogram.reset();
+            received.set(0);
+            long start = System.nanoTime();
+            long sent = generator.run(durationNanos);
+            long elapsed = System.nanoTime() - start;
+            if (receiveFailure.get() != null) {
+                throw receiveFailure.get();
+            }
+
+            String summary = String.format(Locale.ROOT, "rate=%d events/s, fields=%d, batch=%d, " +
+                            "source.options=[%s], sink.options=[%s]%n" +
+                            "sent=%d, received=%d, seconds=%.3f, throughput=%.0f events/s%n" +
+                            "latency micros: p50=%.1f, p99=%.1f, p999=%.1f, max=%.1f%n",
+                    rate, fieldCount, batchSize, sourceOptions, sinkOptions, sent, received.get(),
+                    elapsed / 1e9, received.get() * 1e9 / elapsed,
+                    histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxValue() / 1e3);
+            log.info("KeyValue load report:\n" + summary);
+            File reportDirectory = report.getAbsoluteFile().getParentFile();
+            if (reportDirectory != null && !reportDirectory.exists() && !reportDirectory.mkdirs()) {
+                throw new IOException("Cannot create the directory of the load report " + report);
+            }
+            try (PrintWriter writer = new PrintWriter(report, StandardCharsets.UTF_8.name())) {
+                writer.print(summary);
+            }
+
+            //assert event count
+            AssertJUnit.assertEquals("Number of events", sent, received.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+            InMemoryBroker.unsubscribe(subscriber);
+        }
+    }
+
+    /**
+     * Records the latency of each event of a message published by the sink, in any of its output formats.
+     *
+     * @throws IllegalArgumentException if the message does not carry the send time of its events.
+     */
+    private void receive(Object msg) {
+        long now = System.nanoTime();
+        if (msg instanceof Map) {
+            record(now, ((Map) msg).get(SENT_KEY), msg);
+            return;
+        } else if (msg instanceof String) {
+            receiveText(now, (String) msg);
+            return;
+        } else if (!(msg instanceof byte[]) && !(msg instanceof ByteBuffer)) {
+            throw new IllegalArgumentException("Cannot read the send time of a message of type " +
+                    msg.getClass().getName() + " published by the sink");
+        }
+        ByteBuffer payload = msg instanceof byte[] ? ByteBuffer.wrap((byte[]) msg) : (ByteBuffer) msg;
+        if (!isFrame(payload)) {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            try {
+                payload = CompressionUtil.decompress(CompressionUtil.detect(bytes), bytes);
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Cannot decompress a message published by the sink", e);
+            }
+        }
+        if (ColumnarFrameReader.isFrame(payload)) {
+            Object[][] rows = columnarFrameReader.read(payload, 1);
+            for (Object[] row : rows) {
+                record(now, row[0], msg);
+            }
+        } else if (isFrame(payload)) {
+            receiveFrame(now, payload, msg);
+        } else {
+            Object map;
+            try {
+                map = classAllowList.deserialize(payload.array(), payload.arrayOffset() + payload.position(),
+                        payload.remaining());
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalArgumentException("Cannot deserialize a message published by the sink", e);
+            }
+            if (!(map instanceof Map)) {
+                throw new IllegalArgumentException("Cannot read the send time of a serialized " +
+                        map.getClass().getName() + " published by the sink");
+            }
+            record(now, ((Map) map).get(SENT_KEY), msg);
+        }
+    }
+
+    private void receiveFrame(long now, ByteBuffer frame, Object msg) {
+        int recordCount = BinaryFrameReader.getRecordCount(frame);
+        String[] dictionary = frameReader.readDictionary(frame);
+        int[] keyIndexes = null;
+        int offset;
+        if (BinaryFrameReader.isSparseFrame(frame)) {
+            keyIndexes = frameReader.readSparseKeys(frame);
+            offset = BinaryFrameReader.getFirstSparseRecordOffset(frame);
+        } else if (BinaryFrameReader.isSchemaFrame(frame)) {
+            keyIndexes = frameReader.readSchemaPlan(frame);
+            offset = BinaryFrameReader.getFirstSchemaRecordOffset(frame);
+        } else {
+            offset = BinaryFrameReader.getFirstRecordOffset(frame);
+        }
+        Object[] values = new Object[1];
+        for (int i = 0; i < recordCount; i++) {
+            values[0] = null;
+            offset = keyIndexes == null ? frameReader.readRecord(frame, offset, dictionary, values) :
+                    frameReader.readSparseRecord(frame, offset, keyIndexes, dictionary, values);
+            record(now, values[0], msg);
+        }
+    }
+
+    /**
+     * Reads the send time from the end of a text message, where the sink writes the value of the last attribute.
+     */
+    private void receiveText(long now, String msg) {
+        int start = msg.length();
+        while (start > 0 && Character.isDigit(msg.charAt(start - 1))) {
+            start--;
+        }
+        if (start > 0 && msg.charAt(start - 1) == '-') {
+            start--;
+        }
+        if (start == msg.length() || !msg.regionMatches(Math.max(0, start - SENT_KEY.length() - 1), SENT_KEY, 0,
+                SENT_KEY.length())) {
+            throw new IllegalArgumentException("The text message '" + msg + "' published by the sink does not end " +
+                    "with the '" + SENT_KEY + "' pair");
+        }
+        record(now, Long.parseLong(msg.substring(start)), msg);
+    }
+
+    private void record(long now, Object sent, Object msg) {
+        if (!(sent instanceof Long)) {
+            throw new IllegalArgumentException("The message " + describe(msg) + " published by the sink does not " +
+                    "carry the '" + SENT_KEY + "' key with a long value");
+        }
+        histogram.record(now - (Long) sent);
+        received.incrementAndGet();
+    }
+
+    private static boolean isFrame(ByteBuffer buffer) {
+        return BinaryFrameReader.isFrame(buffer) || BinaryFrameReader.isSparseFrame(buffer) ||
+                BinaryFrameReader.isSchemaFrame(buffer) || ColumnarFrameReader.isFrame(buffer);
+    }
+
+    private static String describe(Object msg) {
+        if (msg instanceof byte[]) {
+            return "of " + ((byte[]) msg).length + " bytes";
+        } else if (msg instanceof ByteBuffer) {
+            return "of " + ((ByteBuffer) msg).remaining() + " bytes";
+        }
+        return "'" + msg + "'";
+    }
+
+    /**
+     * Publishes messages to the source on the calling thread, each scheduled at the time its events are due
+     * according to the rate.
+     */
+    private static class Generator {
+
+        private final String[] keys;
+        private final byte[][] encodedKeys;
+        private final int batchSize;
+        private final long rate;
+        private final BinaryFrameWriter writer = new BinaryFrameWriter();
+        private long sequence;
+
+        private Generator(String[] keys, int batchSize, long rate) {
+            this.keys = keys;
+            this.encodedKeys = BinaryFrameWriter.encodeKeys(keys);
+            this.batchSize = batchSize;
+            this.rate = rate;
+        }
+
+        /**
+         * @param durationNanos how long to send for.
+         * @return the number of events sent.
+         */
+        private long run(long durationNanos) throws IOException {
+            long start = System.nanoTime();
+            long sent = 0;
+            long now = start;
+            while (now - start < durationNanos) {
+                long scheduled = now;
+                if (rate > 0) {
+                    scheduled = start + sent * 1_000_000_000L / rate;
+                    while (now < scheduled) {
+                        LockSupport.parkNanos(scheduled - now);
+                        now = System.nanoTime();
+                    }
+                }
+                InMemoryBroker.publish(IN_TOPIC, batchSize == 1 ? createMap(scheduled) : createFrame(scheduled));
+                sent += batchSize;
+                now = System.nanoTime();
+            }
+            return sent;
+        }
+
+        private Map<String, Object> createMap(long scheduled) {
+            Map<String, Object> map = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], valueOf(i, scheduled));
+            }
+            sequence++;
+            return map;
+        }
+
+        private byte[] createFrame(long scheduled) throws IOException {
+            writer.startFrame();
+            for (int record = 0; record < batchSize; record++) {
+                writer.startRecord();
+                for (int i = 0; i < keys.length; i++) {
+                    writer.writeField(encodedKeys[i], valueOf(i, scheduled));
+                }
+                writer.endRecord();
+                sequence++;
+            }
+            writer.endFrame();
+            return writer.toByteArray();
+        }
+
+        private Object valueOf(int field, long scheduled) {
+            switch (field) {
+                case 0:
+                    return "SYMBOL" + (sequence % 100);
+                case 1:
+                    return 50 + (sequence % 1000) / 100.0;
+                case 2:
+                    return sequence;
+                default:
+                    return field == keys.length - 1 ? (Object) scheduled : (Object) (sequence * 0.5);
+            }
+        }
+    }
+}
@@ -22,17 +22,29 @@ package io.siddhi.extension.map.keyvalue.sinkmapper;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
 import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
 import io.siddhi.core.util.SiddhiTestHelper;
 import io.siddhi.core.util.transport.InMemoryBroker;
+import io.siddhi.extension.map.keyvalue.util.CompressionUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
 
 public class KeyValueSinkMapperTestCase {
 
@@ -957,4 +969,915 @@ public class KeyValueSinkMapperTestCase {
         // Unsubscribe from "inMemory" broker per topic
         InMemoryBroker.unsubscribe(subscriber);
     }
+
+    @Test
+    public void keyvalueSinkMapperCompressionTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Compression TestCase");
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                AssertJUnit.assertTrue(msg instanceof byte[]);
+                AssertJUnit.assertEquals(CompressionUtil.Compression.GZIP, CompressionUtil.detect((byte[]) msg));
+                Object deserialized;
+                try {
+                    ByteBuffer buffer = CompressionUtil.decompress(CompressionUtil.Compression.GZIP, (byte[]) msg);
+                    deserialized = new ObjectInputStream(new ByteArrayInputStream(buffer.array(), 0,
+                            buffer.limit())).readObject();
+                } catch (IOException | ClassNotFoundException | DataFormatException e) {
+                    throw new AssertionError(e);
+                }
+                HashMap<String, Object> map = new HashMap<>();
+                switch (wso2Count.incrementAndGet()) {
+                    case 1:
+                        map.put("symbol", "WSO2");
+                        map.put("price", 55.6f);
+                        map.put("volume", 100L);
+                        AssertJUnit.assertEquals(map, deserialized);
+                        break;
+                    case 2:
+                        map.put("symbol", "IBM");
+                        map.put("price", 32.6f);
+                        map.put("volume", null);
+                        AssertJUnit.assertEquals(map, deserialized);
+                        break;
+                    default:
+                        AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                "Received : " + wso2Count.get());
+                }
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', compression='gzip')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 32.6f, null});
+
+        SiddhiTestHelper.waitForEvents(100, 2, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(2, wso2Count.get());
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSinkMapperInvalidCompressionTestCase() {
+        log.info("KeyValueSinkMapper-Invalid-Compression TestCase");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', compression='zip')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSinkMapperInvalidOutputFormatTestCase() {
+        log.info("KeyValueSinkMapper-Invalid-Output-Format TestCase");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='json')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    @Test
+    public void keyvalueSinkMapperBinaryFrameTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Binary-Frame TestCase");
+        AtomicInteger messageCount = new AtomicInteger();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                AssertJUnit.assertTrue(msg instanceof byte[]);
+                messageCount.incrementAndGet();
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='binary')) " +
+                "define stream BarStream (symbol string, price float, volume long); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false')) " +
+                "define stream BazStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Event[]{
+                new Event(System.currentTimeMillis(), new Object[]{"WSO2", 55.6f, 100L}),
+                new Event(System.currentTimeMillis(), new Object[]{"IBM", null, 160L}),
+                new Event(System.currentTimeMillis(), new Object[]{"ORACLE", 32.6f, 200L})});
+        stockStream.send(new Object[]{"MSFT", 45.6f, 300L});
+
+        SiddhiTestHelper.waitForEvents(100, 4, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(4, wso2Count.get());
+        AssertJUnit.assertEquals(2, messageCount.get());
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", null, 160L}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"ORACLE", 32.6f, 200L}, received.get(2)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"MSFT", 45.6f, 300L}, received.get(3)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperTextTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Text TestCase");
+        List<Object> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add(msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long, active bool); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='text', " +
+                "text.pair.delimiter=',', @payload(s='symbol', p='price', v='volume', a='active'))) " +
+                "define stream BarStream (symbol string, price float, volume long, active bool); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', input.format='text', " +
+                "text.pair.delimiter=',', fail.on.missing.attribute='false', " +
+                "@attributes(symbol='s', price='p', volume='v', active='a'))) " +
+                "define stream BazStream (symbol string, price float, volume long, active bool); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L, true});
+        stockStream.send(new Object[]{" IBM, Inc.\\ ", null, -160L, false});
+
+        SiddhiTestHelper.waitForEvents(100, 2, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(2, wso2Count.get());
+        AssertJUnit.assertEquals("s=WSO2,p=55.6,v=100,a=true", messages.get(0));
+        AssertJUnit.assertEquals("s=\\ IBM\\, Inc.\\\\\\ ,v=-160,a=false", messages.get(1));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L, true}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{" IBM, Inc.\\ ", null, -160L, false}, received.get(1)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSinkMapperNonAsciiDelimiterTestCase() {
+        log.info("KeyValueSinkMapper-Non-Ascii-Delimiter TestCase");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='text', " +
+                "text.key.value.delimiter='\u00b7')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    @Test
+    public void keyvalueSinkMapperNestedKeysTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Nested-Keys TestCase");
+        List<Object> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add(msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', nested.keys='true', " +
+                "@payload('symbol'='symbol', 'order.px'='price', 'order.qty'='volume'))) " +
+                "define stream BarStream (symbol string, price float, volume long); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false', " +
+                "@attributes(symbol='symbol', price='order.px', volume='order.qty'))) " +
+                "define stream BazStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", null, 160L});
+
+        SiddhiTestHelper.waitForEvents(100, 2, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(2, wso2Count.get());
+        HashMap<String, Object> order = new HashMap<>();
+        order.put("px", 55.6f);
+        order.put("qty", 100L);
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("symbol", "WSO2");
+        map.put("order", order);
+        AssertJUnit.assertEquals(map, messages.get(0));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", null, 160L}, received.get(1)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperOmitNullsTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Omit-Nulls TestCase");
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                HashMap<String, Object> map = new HashMap<>();
+                switch (wso2Count.incrementAndGet()) {
+                    case 1:
+                        map.put("symbol", "WSO2");
+                        map.put("price", 55.6f);
+                        map.put("volume", 100L);
+                        AssertJUnit.assertEquals(map, msg);
+                        break;
+                    case 2:
+                        map.put("symbol", "IBM");
+                        AssertJUnit.assertEquals(map, msg);
+                        break;
+                    default:
+                        AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                "Received : " + wso2Count.get());
+                }
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', omit.nulls='true')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", null, null});
+
+        SiddhiTestHelper.waitForEvents(100, 2, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(2, wso2Count.get());
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperSparseTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Sparse TestCase");
+        List<byte[]> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add((byte[]) msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long, comment string); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='sparse')) " +
+                "define stream BarStream (symbol string, price float, volume long, comment string); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false')) " +
+                "define stream BazStream (symbol string, price float, volume long, comment string); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Event[]{
+                new Event(System.currentTimeMillis(), new Object[]{"WSO2", 55.6f, 100L, null}),
+                new Event(System.currentTimeMillis(), new Object[]{null, null, null, "halted"}),
+                new Event(System.currentTimeMillis(), new Object[]{"ORACLE", null, 200L, null})});
+
+        SiddhiTestHelper.waitForEvents(100, 3, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(3, wso2Count.get());
+        AssertJUnit.assertEquals(1, messages.size());
+        AssertJUnit.assertEquals((byte) 'S', messages.get(0)[2]);
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L, null}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{null, null, null, "halted"}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"ORACLE", null, 200L, null}, received.get(2)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperColumnarTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Columnar TestCase");
+        List<byte[]> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add((byte[]) msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long, active bool); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='columnar', " +
+                "@payload(s='symbol', p='price', v='volume', a='active'))) " +
+                "define stream BarStream (symbol string, price float, volume long, active bool); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false', " +
+                "@attributes(symbol='s', price='p', volume='v', active='a'))) " +
+                "define stream BazStream (symbol string, price float, volume long, active bool); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Event[]{
+                new Event(System.currentTimeMillis(), new Object[]{"WSO2", 55.6f, 100L, true}),
+                new Event(System.currentTimeMillis(), new Object[]{"IBM", null, 50L, false}),
+                new Event(System.currentTimeMillis(), new Object[]{null, 75.5f, null, null})});
+        stockStream.send(new Object[]{"ORACLE", 42.1f, 200L, true});
+
+        SiddhiTestHelper.waitForEvents(100, 4, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(4, wso2Count.get());
+        AssertJUnit.assertEquals(2, messages.size());
+        AssertJUnit.assertEquals((byte) 'C', messages.get(0)[2]);
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L, true}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", null, 50L, false}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{null, 75.5f, null, null}, received.get(2)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"ORACLE", 42.1f, 200L, true}, received.get(3)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperDictionaryTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Dictionary TestCase");
+        List<byte[]> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add((byte[]) msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, region string); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='binary', " +
+                "dictionary.keys='symbol, region')) " +
+                "define stream BarStream (symbol string, price float, region string); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false')) " +
+                "define stream BazStream (symbol string, price float, region string); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Event[]{
+                new Event(System.currentTimeMillis(), new Object[]{"WSO2", 55.6f, "EU"}),
+                new Event(System.currentTimeMillis(), new Object[]{"IBM", 75.6f, "EU"})});
+        stockStream.send(new Event[]{
+                new Event(System.currentTimeMillis(), new Object[]{"WSO2", 57.6f, "EU"}),
+                new Event(System.currentTimeMillis(), new Object[]{"IBM", 77.6f, null})});
+
+        SiddhiTestHelper.waitForEvents(100, 4, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(4, wso2Count.get());
+        AssertJUnit.assertEquals(2, messages.size());
+        AssertJUnit.assertEquals(2, messages.get(0)[3]);
+        AssertJUnit.assertTrue(messages.get(1).length < messages.get(0).length);
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, "EU"}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", 75.6f, "EU"}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 57.6f, "EU"}, received.get(2)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", 77.6f, null}, received.get(3)));
+        AssertJUnit.assertSame(received.get(0)[0], received.get(2)[0]);
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperSchemaTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Schema TestCase");
+        List<byte[]> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add((byte[]) msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', output.format='schema', " +
+                "schema.sync.interval='2', @payload(symbol='symbol', price='price', volume='volume'))) " +
+                "define stream BarStream (symbol string, price float, volume long); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', fail.on.missing.attribute='false', " +
+                "@attributes(symbol='symbol', price='price', exchange='exchange'))) " +
+                "define stream BazStream (symbol string, price float, exchange string); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"ORACLE", 57.6f, 300L});
+
+        SiddhiTestHelper.waitForEvents(100, 3, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(3, wso2Count.get());
+        AssertJUnit.assertEquals(3, messages.size());
+        AssertJUnit.assertEquals((byte) 'R', messages.get(0)[2]);
+        AssertJUnit.assertTrue(messages.get(1).length < messages.get(0).length);
+        AssertJUnit.assertTrue(messages.get(2).length > messages.get(1).length);
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, null}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", 75.6f, null}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"ORACLE", 57.6f, null}, received.get(2)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperDeltaTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Delta TestCase");
+        List<Object> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add(msg);
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', delta.key='symbol')) " +
+                "define stream BarStream (symbol string, price float, volume long); " +
+                "@source(type='inMemory', topic='WSO2', @map(type='keyvalue', delta.key='symbol', " +
+                "fail.on.missing.attribute='false')) " +
+                "define stream BazStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+        List<Object[]> received = new ArrayList<>();
+        siddhiAppRuntime.addCallback("BazStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    received.add(event.getData());
+                    wso2Count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"WSO2", 56.1f, 100L});
+        stockStream.send(new Object[]{"WSO2", null, 100L});
+
+        SiddhiTestHelper.waitForEvents(100, 4, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(4, wso2Count.get());
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("symbol", "WSO2");
+        map.put("price", 56.1f);
+        AssertJUnit.assertEquals(map, messages.get(2));
+        map.put("price", null);
+        AssertJUnit.assertEquals(map, messages.get(3));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 55.6f, 100L}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"IBM", 75.6f, 200L}, received.get(1)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 56.1f, 100L}, received.get(2)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", null, 100L}, received.get(3)));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperDeltaSyncIntervalTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Delta-Sync-Interval TestCase");
+        List<Object> messages = new ArrayList<>();
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add(msg);
+                wso2Count.incrementAndGet();
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', delta.key='symbol', " +
+                "delta.sync.interval='3')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"WSO2", 56.1f, 100L});
+        stockStream.send(new Object[]{"WSO2", 56.4f, 100L});
+        stockStream.send(new Object[]{"WSO2", 56.9f, 100L});
+
+        SiddhiTestHelper.waitForEvents(100, 4, wso2Count, 200);
+        //assert event count
+        AssertJUnit.assertEquals(4, wso2Count.get());
+        HashMap<String, Object> map = new HashMap<>();
+        map.put("symbol", "WSO2");
+        map.put("price", 56.1f);
+        AssertJUnit.assertEquals(map, messages.get(1));
+        map.put("price", 56.4f);
+        map.put("volume", 100L);
+        AssertJUnit.assertEquals(map, messages.get(2));
+        map.put("price", 56.9f);
+        map.remove("volume");
+        AssertJUnit.assertEquals(map, messages.get(3));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperConflationTestCase() throws InterruptedException {
+        log.info("KeyValueSinkMapper-Conflation TestCase");
+        List<Object> messages = Collections.synchronizedList(new ArrayList<>());
+        InMemoryBroker.Subscriber subscriberWSO2 = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                messages.add(msg);
+                wso2Count.incrementAndGet();
+            }
+
+            @Override
+            public String getTopic() {
+                return "WSO2";
+            }
+        };
+
+        //subscribe to "inMemory" broker per topic
+        InMemoryBroker.subscribe(subscriberWSO2);
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', conflation.key='symbol', " +
+                "conflation.interval='500')) " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("FooStream");
+
+        siddhiAppRuntime.start();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"WSO2", 56.1f, 110L});
+        stockStream.send(new Object[]{"IBM", 76.6f, 210L});
+        stockStream.send(new Object[]{"WSO2", 57.6f, 120L});
+
+        SiddhiTestHelper.waitForEvents(100, 1, wso2Count, 2000);
+        Thread.sleep(600);
+        //assert event count, the conflated events being published as one batch
+        AssertJUnit.assertEquals(1, wso2Count.get());
+        AssertJUnit.assertTrue(messages.get(0) instanceof List);
+        List<?> batch = (List<?>) messages.get(0);
+        AssertJUnit.assertEquals(2, batch.size());
+        HashMap<String, Object> wso2 = new HashMap<>();
+        wso2.put("symbol", "WSO2");
+        wso2.put("price", 57.6f);
+        wso2.put("volume", 120L);
+        HashMap<String, Object> ibm = new HashMap<>();
+        ibm.put("symbol", "IBM");
+        ibm.put("price", 76.6f);
+        ibm.put("volume", 210L);
+        AssertJUnit.assertTrue(batch.contains(wso2));
+        AssertJUnit.assertTrue(batch.contains(ibm));
+        siddhiAppRuntime.shutdown();
+
+        //unsubscribe from "inMemory" broker per topic
+        InMemoryBroker.unsubscribe(subscriberWSO2);
+    }
+
+    @Test
+    public void keyvalueSinkMapperInvalidConflationOptionsTestCase() {
+        log.info("KeyValueSinkMapper-Invalid-Conflation-Options TestCase");
+
+        String[] options = {"conflation.interval='0'", "conflation.interval='-100'", "conflation.interval='fast'",
+                "conflation.max.keys='0'", "conflation.max.keys='-1'", "conflation.max.keys='many'",
+                "conflation.max.keys='3000000000'"};
+        SiddhiManager siddhiManager = new SiddhiManager();
+        for (String option : options) {
+            String streams = "" +
+                    "@App:name('TestSiddhiApp')" +
+                    "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', conflation.key='symbol', " +
+                    option + ")) " +
+                    "define stream BarStream (symbol string, price float, volume long); ";
+            try {
+                siddhiManager.createSiddhiAppRuntime(streams);
+                AssertJUnit.fail("Expected " + option + " to be rejected");
+            } catch (SiddhiAppCreationException e) {
+                log.info("Rejected " + option + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void keyvalueSinkMapperInvalidDeltaOptionsTestCase() {
+        log.info("KeyValueSinkMapper-Invalid-Delta-Options TestCase");
+
+        String[] options = {"delta.cache.size='0'", "delta.cache.size='-1'", "delta.cache.size='all'",
+                "omit.nulls='true'"};
+        SiddhiManager siddhiManager = new SiddhiManager();
+        for (String option : options) {
+            String streams = "" +
+                    "@App:name('TestSiddhiApp')" +
+                    "@sink(type='inMemory', topic='WSO2', @map(type='keyvalue', delta.key='symbol', " +
+                    option + ")) " +
+                    "define stream BarStream (symbol string, price float, volume long); ";
+            try {
+                siddhiManager.createSiddhiAppRuntime(streams);
+                AssertJUnit.fail("Expected " + option + " to be rejected");
+            } catch (SiddhiAppCreationException e) {
+                log.info("Rejected " + option + ": " + e.getMessage());
+            }
+        }
+    }
 }
@@ -21,10 +21,16 @@ package io.siddhi.extension.map.keyvalue.sourcemapper;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
 import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.stream.output.StreamCallback;
 import io.siddhi.core.util.EventPrinter;
 import io.siddhi.core.util.SiddhiTestHelper;
 import io.siddhi.core.util.transport.InMemoryBroker;
+import io.siddhi.extension.map.keyvalue.util.ArrayKeyValueRecord;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameWriter;
+import io.siddhi.extension.map.keyvalue.util.ColumnarFrameWriter;
+import io.siddhi.extension.map.keyvalue.util.CompressionUtil;
+import io.siddhi.extension.map.keyvalue.util.StringDictionary;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.AssertJUnit;
@@ -36,7 +42,19 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
 import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class KeyValueSourceMapperTestCase {
@@ -1080,6 +1098,1921 @@ public class KeyValueSourceMapperTestCase {
         siddhiAppRuntime.shutdown();
     }
 
+    @Test
+    public void keyvalueSourceMapperLoadSheddingTest() throws Exception {
+        log.info("KeyValueSourceMapper-Load-Shedding-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', shed.max.in.flight='1', " +
+                "shed.priority.key='priority', shed.min.priority='5')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        CountDownLatch slowEventReceived = new CountDownLatch(1);
+        CountDownLatch releaseSlowEvent = new CountDownLatch(1);
+        List<Object> symbols = Collections.synchronizedList(new ArrayList<>());
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    symbols.add(event.getData(0));
+                    count.incrementAndGet();
+                    if ("SLOW".equals(event.getData(0))) {
+                        slowEventReceived.countDown();
+                        try {
+                            releaseSlowEvent.await(2, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "SLOW");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        msg1.put("priority", 10);
+        Thread slowPublisher = new Thread(() -> InMemoryBroker.publish("stock", msg1));
+        slowPublisher.start();
+        AssertJUnit.assertTrue(slowEventReceived.await(2, TimeUnit.SECONDS));
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "LOW");
+        msg2.put("price", 55.6f);
+        msg2.put("volume", 100L);
+        msg2.put("priority", 1);
+        InMemoryBroker.publish("stock", msg2);
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "HIGH");
+        msg3.put("price", 55.6f);
+        msg3.put("volume", 100L);
+        msg3.put("priority", 5);
+        InMemoryBroker.publish("stock", msg3);
+
+        releaseSlowEvent.countDown();
+        slowPublisher.join();
+
+        HashMap<String, Object> msg4 = new HashMap<>();
+        msg4.put("symbol", "LOW");
+        msg4.put("price", 55.6f);
+        msg4.put("volume", 100L);
+        InMemoryBroker.publish("stock", msg4);
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        AssertJUnit.assertEquals(Arrays.asList("SLOW", "HIGH", "LOW"), symbols);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperLatencySheddingTest() throws Exception {
+        log.info("KeyValueSourceMapper-Latency-Shedding-Test");
+        List<Object> symbols = publishAfterSlowHandOff("shed.latency.threshold='1'", 0);
+
+        //assert event count
+        AssertJUnit.assertEquals(Arrays.asList("SLOW"), symbols);
+    }
+
+    @Test
+    public void keyvalueSourceMapperLatencySheddingRecoveryTest() throws Exception {
+        log.info("KeyValueSourceMapper-Latency-Shedding-Recovery-Test");
+        List<Object> symbols = publishAfterSlowHandOff("shed.latency.threshold='1'", 1000);
+
+        //assert event count
+        AssertJUnit.assertEquals(Arrays.asList("SLOW", "LATE"), symbols);
+    }
+
+    @Test
+    public void keyvalueSourceMapperShedSamplingRateTest() throws Exception {
+        log.info("KeyValueSourceMapper-Shed-Sampling-Rate-Test");
+        List<Object> symbols = publishAfterSlowHandOff("shed.latency.threshold='1', shed.sampling.rate='1'", 0);
+
+        //assert event count
+        AssertJUnit.assertEquals(Arrays.asList("SLOW", "LOW", "LATE"), symbols);
+    }
+
+    /**
+     * Method to publish a message whose hand off takes 50 milliseconds, followed by a message right away and a
+     * message after the given pause, through a source mapper shedding by the hand off latency.
+     *
+     * @param options     the load shedding options of the mapper.
+     * @param pauseMillis the pause before the last message.
+     * @return the symbols of the messages that were not shed.
+     */
+    private List<Object> publishAfterSlowHandOff(String options, long pauseMillis) throws InterruptedException {
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " + options + ")) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> symbols = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    symbols.add(event.getData(0));
+                    if ("SLOW".equals(event.getData(0))) {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+        for (String symbol : new String[]{"SLOW", "LOW", "LATE"}) {
+            if ("LATE".equals(symbol)) {
+                Thread.sleep(pauseMillis);
+            }
+            HashMap<String, Object> msg = new HashMap<>();
+            msg.put("symbol", symbol);
+            msg.put("price", 55.6f);
+            msg.put("volume", 100L);
+            InMemoryBroker.publish("stock", msg);
+        }
+        siddhiAppRuntime.shutdown();
+        return symbols;
+    }
+
+    @Test
+    public void keyvalueSourceMapperCompressedByteArrayTest() throws Exception {
+        log.info("KeyValueSourceMapper-Compressed-Byte-Array-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 3," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        byte[] bytes1 = serialize(msg1);
+        InMemoryBroker.publish("stock", CompressionUtil.compress(CompressionUtil.Compression.DEFLATE, bytes1, 0,
+                bytes1.length));
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("price", 55.678f);
+        msg2.put("volume", 100L);
+        byte[] bytes2 = serialize(msg2);
+        InMemoryBroker.publish("stock", CompressionUtil.compress(CompressionUtil.Compression.GZIP, bytes2, 0,
+                bytes2.length));
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("price", 55.678f);
+        msg3.put("volume", 100L);
+        InMemoryBroker.publish("stock", serialize(msg3));
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecompressionMaxSizeTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decompression-Max-Size-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', decompression.max.size='1024')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    count.incrementAndGet();
+                    AssertJUnit.assertEquals("IBM", event.getData(0));
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        msg1.put("padding", new String(new char[64 * 1024]).replace('\0', 'x'));
+        byte[] bytes1 = serialize(msg1);
+        byte[] compressed1 = CompressionUtil.compress(CompressionUtil.Compression.GZIP, bytes1, 0, bytes1.length);
+        AssertJUnit.assertTrue(compressed1.length < 1024);
+        InMemoryBroker.publish("stock", compressed1);
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("price", 55.678f);
+        msg2.put("volume", 100L);
+        byte[] bytes2 = serialize(msg2);
+        InMemoryBroker.publish("stock", CompressionUtil.compress(CompressionUtil.Compression.DEFLATE, bytes2, 0,
+                bytes2.length));
+
+        SiddhiTestHelper.waitForEvents(100, 1, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperBinaryFrameTest() throws Exception {
+        log.info("KeyValueSourceMapper-Binary-Frame-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                "@attributes(symbol = 's', price = 'p', volume = 'v'))) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        AtomicInteger batchCount = new AtomicInteger();
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                batchCount.incrementAndGet();
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            AssertJUnit.assertEquals(57.6f, event.getData(1));
+                            AssertJUnit.assertEquals(300L, event.getData(2));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"s", "p", "v", "x"});
+        BinaryFrameWriter writer = new BinaryFrameWriter();
+        writer.startFrame();
+        writer.startRecord();
+        writer.writeField(keys[0], "WSO2");
+        writer.writeField(keys[1], 55.6f);
+        writer.writeField(keys[2], 100L);
+        writer.writeField(keys[3], "ignored");
+        writer.endRecord();
+        writer.startRecord();
+        writer.writeField(keys[0], "IBM");
+        writer.writeField(keys[2], 200L);
+        writer.endRecord();
+        writer.startRecord();
+        writer.writeField(keys[2], 300L);
+        writer.writeField(keys[1], 57.6f);
+        writer.writeField(keys[0], "ORACLE");
+        writer.endRecord();
+        writer.endFrame();
+        InMemoryBroker.publish("stock", writer.toByteArray());
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        AssertJUnit.assertEquals("Number of batches", 1, batchCount.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperMalformedBinaryFrameTest() throws Exception {
+        log.info("KeyValueSourceMapper-Malformed-Binary-Frame-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                "@attributes(symbol = 's', price = 'p', volume = 'v'))) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    count.incrementAndGet();
+                    AssertJUnit.assertEquals("IBM", event.getData(0));
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"s", "p", "v"});
+        BinaryFrameWriter writer = new BinaryFrameWriter();
+        writer.startFrame();
+        writer.startRecord();
+        writer.writeField(keys[0], "WSO2");
+        writer.writeField(keys[1], 55.6f);
+        writer.writeField(keys[2], 100L);
+        writer.endRecord();
+        writer.endFrame();
+
+        // record count that cannot fit in the frame
+        byte[] frame = writer.toByteArray();
+        ByteBuffer.wrap(frame).putInt(4, Integer.MAX_VALUE);
+        InMemoryBroker.publish("stock", frame);
+
+        // string length that exceeds the frame, read from a direct buffer
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(writer.size());
+        directBuffer.put(writer.getBuffer(), 0, writer.size());
+        directBuffer.flip();
+        directBuffer.putInt(BinaryFrameWriter.HEADER_SIZE + 10, Integer.MAX_VALUE - 16);
+        InMemoryBroker.publish("stock", directBuffer);
+
+        writer.startFrame();
+        writer.startRecord();
+        writer.writeField(keys[0], "IBM");
+        writer.writeField(keys[1], 57.6f);
+        writer.writeField(keys[2], 200L);
+        writer.endRecord();
+        writer.endFrame();
+        InMemoryBroker.publish("stock", writer.toByteArray());
+
+        SiddhiTestHelper.waitForEvents(100, 1, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDictionaryMaxSizeTest() throws Exception {
+        log.info("KeyValueSourceMapper-Dictionary-Max-Size-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', dictionary.max.size='2')) " +
+                "define stream FooStream (symbol string, price float); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> symbols = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    symbols.add(event.getData(0));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"symbol", "price"});
+        StringDictionary dictionary = new StringDictionary(100, 100);
+        BinaryFrameWriter writer = new BinaryFrameWriter();
+        String[][] frames = {{"WSO2", "IBM"}, {"ORACLE"}, {"WSO2"}};
+        for (String[] frameSymbols : frames) {
+            writer.startFrame();
+            for (String symbol : frameSymbols) {
+                writer.startRecord();
+                writer.writeField(keys[0], symbol, dictionary);
+                writer.writeField(keys[1], 55.6f);
+                writer.endRecord();
+            }
+            writer.endFrame(dictionary);
+            InMemoryBroker.publish("stock", writer.toByteArray());
+        }
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count, the frame with the dictionary entry beyond the maximum size being dropped
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        AssertJUnit.assertEquals(Arrays.asList("WSO2", "IBM", "WSO2"), symbols);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperMalformedColumnarFrameTest() throws Exception {
+        log.info("KeyValueSourceMapper-Malformed-Columnar-Frame-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    count.incrementAndGet();
+                    AssertJUnit.assertEquals("IBM", event.getData(0));
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        // a million rows without columns, padded so that their null bits would fit in the frame
+        ByteBuffer noColumns = ByteBuffer.allocate(ColumnarFrameWriter.HEADER_SIZE + 200_000);
+        noColumns.put(ColumnarFrameWriter.MAGIC).put(ColumnarFrameWriter.VERSION).putInt(1_000_000)
+                .putShort((short) 0);
+        InMemoryBroker.publish("stock", noColumns.array());
+
+        // row count whose fixed width values do not fit in the frame
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"volume", "price", "symbol"});
+        ColumnarFrameWriter writer = new ColumnarFrameWriter();
+        writer.write(keys, new Object[][]{{100L, 55.6f, "WSO2"}}, 1);
+        byte[] frame = writer.toByteArray();
+        byte[] padded = Arrays.copyOf(frame, frame.length + 256);
+        ByteBuffer.wrap(padded).putInt(4, 500);
+        InMemoryBroker.publish("stock", padded);
+
+        writer.write(keys, new Object[][]{{200L, 57.6f, "IBM"}}, 1);
+        InMemoryBroker.publish("stock", writer.toByteArray());
+
+        SiddhiTestHelper.waitForEvents(100, 1, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperByteBufferTest() throws Exception {
+        log.info("KeyValueSourceMapper-Byte-Buffer-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            AssertJUnit.assertEquals(57.6f, event.getData(1));
+                            AssertJUnit.assertEquals(200L, event.getData(2));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 3," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        byte[][] keys = BinaryFrameWriter.encodeKeys(new String[]{"symbol", "price", "volume", "comment"});
+        BinaryFrameWriter writer = new BinaryFrameWriter();
+        writer.startFrame();
+        writer.startRecord();
+        writer.writeField(keys[0], "WSO2");
+        writer.writeField(keys[3], "not required by the stream");
+        writer.writeField(keys[1], 55.6f);
+        writer.writeField(keys[2], 100L);
+        writer.endRecord();
+        writer.startRecord();
+        writer.writeField(keys[0], "IBM");
+        writer.writeField(keys[1], 57.6f);
+        writer.writeField(keys[2], 200L);
+        writer.endRecord();
+        writer.endFrame();
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(writer.size() + 4);
+        directBuffer.putInt(0);
+        directBuffer.put(writer.getBuffer(), 0, writer.size());
+        directBuffer.flip();
+        directBuffer.position(4);
+        InMemoryBroker.publish("stock", directBuffer);
+        AssertJUnit.assertEquals(4, directBuffer.position());
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("price", 55.678f);
+        msg3.put("volume", 100L);
+        InMemoryBroker.publish("stock", ByteBuffer.wrap(serialize(msg3)));
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperTextTest() throws Exception {
+        log.info("KeyValueSourceMapper-Text-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', input.format='text', " +
+                "text.pair.delimiter=',', @attributes(symbol = 's', price = 'p', volume = 'v', active = 'a'))) " +
+                "define stream FooStream (symbol string, price double, volume long, active bool); " +
+                "define stream BarStream (symbol string, price double, volume long, active bool); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            AssertJUnit.assertEquals(true, event.getData(3));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM, Inc.", event.getData(0));
+                            AssertJUnit.assertEquals(-1.25e-3, event.getData(1));
+                            AssertJUnit.assertEquals(-200L, event.getData(2));
+                            AssertJUnit.assertEquals(false, event.getData(3));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            AssertJUnit.assertEquals(57.0, event.getData(1));
+                            AssertJUnit.assertEquals(300L, event.getData(2));
+                            AssertJUnit.assertEquals(true, event.getData(3));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 3," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        InMemoryBroker.publish("stock", "s=WSO2,p=55.6,v=100,a=true");
+        InMemoryBroker.publish("stock", " s = IBM\\, Inc. , x=ignored, p=-1.25e-3 ,v=-200,a=FALSE,");
+        InMemoryBroker.publish("stock", "s=MSFT,p=not a number,v=300,a=true");
+        InMemoryBroker.publish("stock", "s=MSFT,p=56.6,v");
+        InMemoryBroker.publish("stock", "s=ORACLE,p=57,v=300,a=true".getBytes(StandardCharsets.UTF_8));
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSourceMapperNonAsciiDelimiterTest() {
+        log.info("KeyValueSourceMapper-Non-Ascii-Delimiter-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', input.format='text', " +
+                "text.pair.delimiter='\u00a7')) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    @Test
+    public void keyvalueSourceMapperNestedKeyPathTest() throws Exception {
+        log.info("KeyValueSourceMapper-Nested-Key-Path-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                "@attributes(symbol = 'symbol', price = 'order.px', volume = 'order.qty'))) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            AssertJUnit.assertEquals(75.6f, event.getData(1));
+                            AssertJUnit.assertEquals(200L, event.getData(2));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> order1 = new HashMap<>();
+        order1.put("px", 55.6f);
+        order1.put("qty", 100L);
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("order", order1);
+        InMemoryBroker.publish("stock", msg1);
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("order.px", 75.6f);
+        msg2.put("order.qty", 200L);
+        InMemoryBroker.publish("stock", msg2);
+
+        HashMap<String, Object> order3 = new HashMap<>();
+        order3.put("px", 57.6f);
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("order", order3);
+        InMemoryBroker.publish("stock", msg3);
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDefaultValueTest() throws Exception {
+        log.info("KeyValueSourceMapper-Default-Value-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', volume.default='0', " +
+                "active.default='true', @attributes(symbol = 's', price = 'p', volume = 'v', active = 'a'))) " +
+                "define stream FooStream (symbol string, price float, volume long, active bool); " +
+                "define stream BarStream (symbol string, price float, volume long, active bool); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(0L, event.getData(2));
+                            AssertJUnit.assertEquals(true, event.getData(3));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            AssertJUnit.assertEquals(200L, event.getData(2));
+                            AssertJUnit.assertEquals(false, event.getData(3));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("s", "WSO2");
+        msg1.put("p", 55.6f);
+        InMemoryBroker.publish("stock", msg1);
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("s", "IBM");
+        msg2.put("p", 75.6f);
+        msg2.put("v", 200L);
+        msg2.put("a", false);
+        InMemoryBroker.publish("stock", msg2);
+
+        // price has no default, hence the message is dropped
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("s", "ORACLE");
+        InMemoryBroker.publish("stock", msg3);
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperUnknownEntityDeltaTest() throws Exception {
+        log.info("KeyValueSourceMapper-Unknown-Entity-Delta-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', delta.key='symbol', " +
+                "fail.on.missing.attribute='false')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        List<Object[]> received = new ArrayList<>();
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(event.getData());
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> delta = new HashMap<>();
+        delta.put("symbol", "WSO2");
+        delta.put("price", 55.6f);
+        InMemoryBroker.publish("stock", delta);
+
+        HashMap<String, Object> full = new HashMap<>();
+        full.put("symbol", "WSO2");
+        full.put("price", 56.1f);
+        full.put("volume", 100L);
+        InMemoryBroker.publish("stock", full);
+
+        delta.put("price", 57.3f);
+        InMemoryBroker.publish("stock", delta);
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 56.1f, 100L}, received.get(0)));
+        AssertJUnit.assertTrue(Arrays.equals(new Object[]{"WSO2", 57.3f, 100L}, received.get(1)));
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperInvalidDeltaCacheSizeTest() {
+        log.info("KeyValueSourceMapper-Invalid-Delta-Cache-Size-Test");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        for (String cacheSize : new String[]{"0", "-1", "all"}) {
+            String streams = "" +
+                    "@App:name('TestSiddhiApp')" +
+                    "@source(type='inMemory', topic='stock', @map(type='keyvalue', delta.key='symbol', " +
+                    "delta.cache.size='" + cacheSize + "')) " +
+                    "define stream FooStream (symbol string, price float, volume long); ";
+            try {
+                siddhiManager.createSiddhiAppRuntime(streams);
+                AssertJUnit.fail("Expected delta.cache.size '" + cacheSize + "' to be rejected");
+            } catch (SiddhiAppCreationException e) {
+                log.info("Rejected delta.cache.size '" + cacheSize + "': " + e.getMessage());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSourceMapperInvalidDefaultValueTest() {
+        log.info("KeyValueSourceMapper-Invalid-Default-Value-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', volume.default='none')) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    @Test
+    public void keyvalueSourceMapperKeyAliasTest() throws Exception {
+        log.info("KeyValueSourceMapper-Key-Alias-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', symbol.aliases='SYM, ticker', " +
+                "case.insensitive.keys='true')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            AssertJUnit.assertEquals(75.6f, event.getData(1));
+                            AssertJUnit.assertEquals(200L, event.getData(2));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            AssertJUnit.assertEquals(57.6f, event.getData(1));
+                            AssertJUnit.assertEquals(300L, event.getData(2));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 3," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        InMemoryBroker.publish("stock", msg1);
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("Symbol", "IBM");
+        msg2.put("PRICE", 75.6f);
+        msg2.put("Volume", 200L);
+        InMemoryBroker.publish("stock", msg2);
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("sym", "ORACLE");
+        msg3.put("price", 57.6f);
+        msg3.put("volume", 300L);
+        InMemoryBroker.publish("stock", msg3);
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperUnknownKeyTest() throws Exception {
+        log.info("KeyValueSourceMapper-Unknown-Key-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', fail.on.unknown.key='true', " +
+                "symbol.aliases='ticker', @attributes(symbol = 'symbol', price = 'order.px', volume = 'volume'))) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            AssertJUnit.assertEquals(57.6f, event.getData(1));
+                            AssertJUnit.assertEquals(300L, event.getData(2));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> order1 = new HashMap<>();
+        order1.put("px", 55.6f);
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("order", order1);
+        msg1.put("volume", 100L);
+        InMemoryBroker.publish("stock", msg1);
+
+        HashMap<String, Object> order2 = new HashMap<>();
+        order2.put("px", 75.6f);
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("order", order2);
+        msg2.put("volume", 200L);
+        msg2.put("volumne", 200L);
+        InMemoryBroker.publish("stock", msg2);
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("ticker", "ORACLE");
+        msg3.put("order.px", 57.6f);
+        msg3.put("volume", 300L);
+        InMemoryBroker.publish("stock", msg3);
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecodingThreadsTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decoding-Threads-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', decoding.threads='4')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        List<Long> volumes = Collections.synchronizedList(new ArrayList<>());
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    volumes.add((Long) event.getData(2));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        int messageCount = 200;
+        List<Long> expected = new ArrayList<>(messageCount);
+        for (long i = 0; i < messageCount; i++) {
+            if (i == 50) {
+                InMemoryBroker.publish("stock", new byte[]{1, 2, 3});
+            }
+            HashMap<String, Object> msg = new HashMap<>();
+            msg.put("symbol", "WSO2");
+            msg.put("price", 55.6f);
+            msg.put("volume", i);
+            InMemoryBroker.publish("stock", serialize(msg));
+            expected.add(i);
+        }
+
+        SiddhiTestHelper.waitForEvents(100, messageCount, count, 10000);
+
+        //assert event count and order
+        AssertJUnit.assertEquals("Number of events", messageCount, count.get());
+        AssertJUnit.assertEquals(expected, volumes);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecodingThreadsMixedMessagesTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decoding-Threads-Mixed-Messages-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', decoding.threads='4')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        List<Long> volumes = Collections.synchronizedList(new ArrayList<>());
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    volumes.add((Long) event.getData(2));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        int messageCount = 300;
+        List<Long> expected = new ArrayList<>(messageCount);
+        ArrayKeyValueRecord record = new ArrayKeyValueRecord("symbol", "price", "volume");
+        for (long i = 0; i < messageCount; i++) {
+            HashMap<String, Object> msg = new HashMap<>();
+            msg.put("symbol", "WSO2");
+            msg.put("price", 55.6f);
+            msg.put("volume", i);
+            switch ((int) (i % 3)) {
+                case 0:
+                    InMemoryBroker.publish("stock", serialize(msg));
+                    break;
+                case 1:
+                    InMemoryBroker.publish("stock", Collections.singletonList(msg));
+                    break;
+                default:
+                    // the record is reused for the next message once it is mapped
+                    record.clear();
+                    record.setString("symbol", "WSO2").setFloat("price", 55.6f).setLong("volume", i);
+                    InMemoryBroker.publish("stock", record);
+            }
+            expected.add(i);
+        }
+
+        SiddhiTestHelper.waitForEvents(100, messageCount, count, 10000);
+
+        //assert event count and order
+        AssertJUnit.assertEquals("Number of events", messageCount, count.get());
+        AssertJUnit.assertEquals(expected, volumes);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecodingThreadsFailureTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decoding-Threads-Failure-Test");
+        TestFailureRecordingKeyValueSourceMapper.FAILED_EVENTS.clear();
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='testFailureRecordingKeyValue', " +
+                "decoding.threads='2')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                count.addAndGet(events.length);
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg = new HashMap<>();
+        msg.put("symbol", "WSO2");
+        msg.put("price", 55.6f);
+        msg.put("volume", 100L);
+        InMemoryBroker.publish("stock", serialize(msg));
+        SiddhiTestHelper.waitForEvents(100, 1, count, 10000);
+        // the failure of the last message is reported when it is handed off, without waiting for another message
+        InMemoryBroker.publish("stock", new byte[]{1, 2, 3});
+        for (int i = 0; i < 100 && TestFailureRecordingKeyValueSourceMapper.FAILED_EVENTS.isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+
+        //assert event count and reported failures
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        AssertJUnit.assertEquals("Number of failures", 1,
+                TestFailureRecordingKeyValueSourceMapper.FAILED_EVENTS.size());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecodingThreadsShutdownTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decoding-Threads-Shutdown-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', decoding.threads='2')) " +
+                "define stream DecodedStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        siddhiAppRuntime.addCallback("DecodedStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg = new HashMap<>();
+        msg.put("symbol", "WSO2");
+        msg.put("price", 55.6f);
+        msg.put("volume", 100L);
+        for (int i = 0; i < 10; i++) {
+            InMemoryBroker.publish("stock", serialize(msg));
+        }
+        SiddhiTestHelper.waitForEvents(100, 10, count, 10000);
+        siddhiAppRuntime.shutdown();
+        for (int i = 0; i < 100 && decoderThreadCount("DecodedStream") > 0; i++) {
+            Thread.sleep(100);
+        }
+
+        //assert event count and stopped decoder threads
+        AssertJUnit.assertEquals("Number of events", 10, count.get());
+        AssertJUnit.assertEquals("Number of decoder threads", 0, decoderThreadCount("DecodedStream"));
+    }
+
+    private static int decoderThreadCount(String streamId) {
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("keyvalue-decoder-" + streamId + "-")) {
+                threads++;
+            }
+        }
+        return threads;
+    }
+
+    @Test
+    public void keyvalueSourceMapperDecodingThreadsTransportPropertiesTest() throws Exception {
+        log.info("KeyValueSourceMapper-Decoding-Threads-Transport-Properties-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='testTrpInMemory', topic='stock', prop1='foo', prop2='bar', " +
+                "@map(type='keyvalue', decoding.threads='4', " +
+                "@attributes(symbol = 'trp:symbol', price = 'p', volume = 'v')))" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        List<Object> symbols = Collections.synchronizedList(new ArrayList<>());
+        List<Long> volumes = Collections.synchronizedList(new ArrayList<>());
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    symbols.add(event.getData(0));
+                    volumes.add((Long) event.getData(2));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        int messageCount = 100;
+        List<Long> expected = new ArrayList<>(messageCount);
+        for (long i = 0; i < messageCount; i++) {
+            HashMap<String, Object> msg = new HashMap<>();
+            msg.put("s", "WSO2");
+            msg.put("p", 55.6f);
+            msg.put("v", i);
+            InMemoryBroker.publish("stock", serialize(msg));
+            expected.add(i);
+        }
+
+        SiddhiTestHelper.waitForEvents(100, messageCount, count, 10000);
+
+        //assert event count, transport properties and order
+        AssertJUnit.assertEquals("Number of events", messageCount, count.get());
+        AssertJUnit.assertEquals(Collections.nCopies(messageCount, "foo"), symbols);
+        AssertJUnit.assertEquals(expected, volumes);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDeserializationAllowListTest() throws Exception {
+        log.info("KeyValueSourceMapper-Deserialization-Allow-List-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                "deserialization.allowed.classes='java.util.Currency')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        InMemoryBroker.publish("stock", serialize(msg1));
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("price", 75.6f);
+        msg2.put("volume", 200L);
+        msg2.put("id", new UUID(1, 2));
+        InMemoryBroker.publish("stock", serialize(msg2));
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("price", 57.6f);
+        msg3.put("volume", 300L);
+        msg3.put("currency", Currency.getInstance("USD"));
+        InMemoryBroker.publish("stock", serialize(msg3));
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperDeserializationLimitsTest() throws Exception {
+        log.info("KeyValueSourceMapper-Deserialization-Limits-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', " +
+                "deserialization.max.array.length='16', deserialization.max.depth='4')) " +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "define stream BarStream (symbol string, price float, volume long); ";
+
+        String query = "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        siddhiAppRuntime.addCallback("BarStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    count.incrementAndGet();
+                    AssertJUnit.assertEquals("ORACLE", event.getData(0));
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        msg1.put("padding", new int[100]);
+        InMemoryBroker.publish("stock", serialize(msg1));
+
+        HashMap<String, Object> nested = new HashMap<>();
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("price", 55.6f);
+        msg2.put("volume", 100L);
+        msg2.put("padding", nested);
+        for (int i = 0; i < 6; i++) {
+            HashMap<String, Object> inner = new HashMap<>();
+            nested.put("inner", inner);
+            nested = inner;
+        }
+        InMemoryBroker.publish("stock", serialize(msg2));
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("price", 55.6f);
+        msg3.put("volume", 100L);
+        msg3.put("padding", new int[16]);
+        InMemoryBroker.publish("stock", serialize(msg3));
+
+        SiddhiTestHelper.waitForEvents(100, 1, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperBatchDeliveryTest() throws Exception {
+        log.info("KeyValueSourceMapper-Batch-Delivery-Test");
+        List<List<Object>> expected = receiveDelivered("single");
+        AssertJUnit.assertEquals("Number of events", 6, expected.size());
+        AssertJUnit.assertEquals(Arrays.asList("foo", "WSO2", 55.6f, 0L), expected.get(0));
+        AssertJUnit.assertEquals(Arrays.asList("foo", "ORACLE", 75.6f, 5L), expected.get(5));
+        for (String batchType : new String[]{"list", "array", "frame"}) {
+            AssertJUnit.assertEquals("Events delivered as " + batchType, expected, receiveDelivered(batchType));
+        }
+    }
+
+    @Test
+    public void keyvalueSourceMapperBatchWithInvalidMessageTest() throws Exception {
+        log.info("KeyValueSourceMapper-Batch-With-Invalid-Message-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> symbols = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    symbols.add(event.getData(0));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("price", 55.6f);
+        msg1.put("volume", 100L);
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("price", 75.6f);
+        msg2.put("volume", 200L);
+        InMemoryBroker.publish("stock", Arrays.asList(msg1, new byte[]{1, 2, 3}, serialize(msg2)));
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        AssertJUnit.assertEquals(Arrays.asList("WSO2", "IBM"), symbols);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperRecordTest() throws Exception {
+        log.info("KeyValueSourceMapper-Record-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', fail.on.missing.attribute='false', " +
+                "@attributes(symbol = 's', price = 'p', volume = 'v', active = 'a'))) " +
+                "define stream FooStream (symbol string, price float, volume long, active bool); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    switch (count.incrementAndGet()) {
+                        case 1:
+                            AssertJUnit.assertEquals("WSO2", event.getData(0));
+                            AssertJUnit.assertEquals(55.6f, event.getData(1));
+                            AssertJUnit.assertEquals(100L, event.getData(2));
+                            AssertJUnit.assertEquals(true, event.getData(3));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals("IBM", event.getData(0));
+                            AssertJUnit.assertEquals(75.6f, event.getData(1));
+                            AssertJUnit.assertEquals(200L, event.getData(2));
+                            AssertJUnit.assertNull(event.getData(3));
+                            break;
+                        default:
+                            AssertJUnit.fail("Received more than expected number of events. Expected maximum : 2," +
+                                    "Received : " + count.get());
+                    }
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        ArrayKeyValueRecord record = new ArrayKeyValueRecord("s", "p", "v", "a");
+        record.setString("s", "WSO2").setFloat("p", 55.6f).setLong("v", 100L).setBoolean("a", true);
+        InMemoryBroker.publish("stock", record);
+
+        record.clear();
+        record.setString("s", "IBM").set("p", new BigDecimal("75.6")).setLong("v", 200L);
+        InMemoryBroker.publish("stock", record);
+
+        record.clear();
+        record.setString("s", "ORACLE").setFloat("p", 57.6f).setInt("v", 300);
+        InMemoryBroker.publish("stock", record);
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperPositionalTest() throws Exception {
+        log.info("KeyValueSourceMapper-Positional-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        InMemoryBroker.publish("stock", new Object[]{"WSO2", 55.6f, 100L});
+        InMemoryBroker.publish("stock", Arrays.asList("IBM", 75.6f, 200L));
+        InMemoryBroker.publish("stock", new String[]{"volume", "symbol", "price"});
+        InMemoryBroker.publish("stock", new Object[]{300L, "ORACLE", 57.6f});
+        InMemoryBroker.publish("stock", new Object[]{400L, "MSFT"});
+        InMemoryBroker.publish("stock", Arrays.asList(new String[]{"price", "volume", "symbol"},
+                new Object[]{12.5f, 500L, "IBM"}, Arrays.asList(13.5f, 600L, "WSO2")));
+
+        SiddhiTestHelper.waitForEvents(100, 5, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 5, count.get());
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 55.6f, 100L),
+                Arrays.asList("IBM", 75.6f, 200L),
+                Arrays.asList("ORACLE", 57.6f, 300L),
+                Arrays.asList("IBM", 12.5f, 500L),
+                Arrays.asList("WSO2", 13.5f, 600L)), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperPositionalObjectValuesTest() throws Exception {
+        log.info("KeyValueSourceMapper-Positional-Object-Values-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue')) " +
+                "define stream FooStream (meta object, symbol string, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> meta = new HashMap<>();
+        meta.put("exchange", "NYSE");
+        InMemoryBroker.publish("stock", new Object[]{meta, "WSO2", 100L});
+        InMemoryBroker.publish("stock", Arrays.asList(meta, "IBM", 200L));
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList(meta, "WSO2", 100L),
+                Arrays.asList(meta, "IBM", 200L)), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperBatchMessagesDisabledTest() throws Exception {
+        log.info("KeyValueSourceMapper-Batch-Messages-Disabled-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', batch.messages='false')) " +
+                "define stream FooStream (meta object, tags object); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> meta = new HashMap<>();
+        meta.put("exchange", "NYSE");
+        List<String> tags = Arrays.asList("tech", "large-cap");
+        InMemoryBroker.publish("stock", Arrays.asList(meta, tags));
+
+        SiddhiTestHelper.waitForEvents(100, 1, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 1, count.get());
+        AssertJUnit.assertEquals(Collections.singletonList(Arrays.asList(meta, tags)), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperPositionalKeysTest() throws Exception {
+        log.info("KeyValueSourceMapper-Positional-Keys-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', positional.keys='v, s, p', " +
+                "fail.on.missing.attribute='false', fail.on.unknown.key='true', " +
+                "@attributes(symbol = 's', price = 'p', volume = 'v'))) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        InMemoryBroker.publish("stock", new Object[]{100L, "WSO2", 55.6f});
+        InMemoryBroker.publish("stock", new Object[]{200L, "IBM"});
+        InMemoryBroker.publish("stock", new Object[]{300L, "ORACLE", 57.6f, "extra"});
+        InMemoryBroker.publish("stock", new Object[]{"400", "MSFT", 58.6f});
+
+        SiddhiTestHelper.waitForEvents(100, 2, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 2, count.get());
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 55.6f, 100L),
+                Arrays.asList("IBM", null, 200L)), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void keyvalueSourceMapperTimestampFormatTest() throws Exception {
+        log.info("KeyValueSourceMapper-Timestamp-Format-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', ts.format='ISO_8601', " +
+                "created.format='dd/MM/yyyy HH:mm')) " +
+                "define stream FooStream (symbol string, ts long, created long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                    count.incrementAndGet();
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        HashMap<String, Object> msg1 = new HashMap<>();
+        msg1.put("symbol", "WSO2");
+        msg1.put("ts", "2026-10-19T10:15:30.250Z");
+        msg1.put("created", "19/10/2026 10:15");
+        InMemoryBroker.publish("stock", msg1);
+
+        HashMap<String, Object> msg2 = new HashMap<>();
+        msg2.put("symbol", "IBM");
+        msg2.put("ts", "2026-10-19 15:45:30+05:30");
+        msg2.put("created", 1792404900000L);
+        InMemoryBroker.publish("stock", msg2);
+
+        HashMap<String, Object> msg3 = new HashMap<>();
+        msg3.put("symbol", "ORACLE");
+        msg3.put("ts", Instant.ofEpochMilli(1000L));
+        msg3.put("created", LocalDateTime.of(1970, 1, 1, 0, 0, 2));
+        InMemoryBroker.publish("stock", msg3);
+
+        HashMap<String, Object> msg4 = new HashMap<>();
+        msg4.put("symbol", "MSFT");
+        msg4.put("ts", "2026-13-19T10:15:30Z");
+        msg4.put("created", "19/10/2026 10:15");
+        InMemoryBroker.publish("stock", msg4);
+
+        SiddhiTestHelper.waitForEvents(100, 3, count, 200);
+
+        //assert event count
+        AssertJUnit.assertEquals("Number of events", 3, count.get());
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 1792404930250L, 1792404900000L),
+                Arrays.asList("IBM", 1792404930000L, 1792404900000L),
+                Arrays.asList("ORACLE", 1000L, 2000L)), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void keyvalueSourceMapperInvalidTimestampFormatTest() {
+        log.info("KeyValueSourceMapper-Invalid-Timestamp-Format-Test");
+
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='inMemory', topic='stock', @map(type='keyvalue', symbol.format='ISO_8601')) " +
+                "define stream FooStream (symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(streams);
+    }
+
+    /**
+     * Method to publish the same messages through a source delivering them in the given way, and collect the data
+     * of the mapped events.
+     *
+     * @param batchType how the source delivers the messages to the mapper.
+     * @return the data of the mapped events in the order they were received.
+     */
+    private List<List<Object>> receiveDelivered(String batchType) throws InterruptedException {
+        String streams = "" +
+                "@App:name('TestSiddhiApp')" +
+                "@source(type='testTrpBatchInMemory', topic='stock', batch.size='3', batch.type='" + batchType +
+                "', prop1='foo', prop2='bar', " +
+                "@map(type='keyvalue', " +
+                "@attributes(source = 'trp:symbol', symbol = 's', price = 'p', volume = 'v')))" +
+                "define stream FooStream (source string, symbol string, price float, volume long); ";
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams);
+        List<List<Object>> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger chunks = new AtomicInteger();
+        siddhiAppRuntime.addCallback("FooStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                chunks.incrementAndGet();
+                for (Event event : events) {
+                    received.add(Arrays.asList(event.getData()));
+                }
+            }
+        });
+
+        siddhiAppRuntime.start();
+
+        String[] symbols = {"WSO2", "IBM", "ORACLE"};
+        for (int i = 0; i < 6; i++) {
+            HashMap<String, Object> msg = new HashMap<>();
+            msg.put("s", symbols[i % 3]);
+            msg.put("p", i % 2 == 0 ? 55.6f : 75.6f);
+            msg.put("v", (long) i);
+            InMemoryBroker.publish("stock", msg);
+        }
+
+        AssertJUnit.assertEquals("Number of chunks delivered as " + batchType,
+                batchType.equals("single") ? 6 : 2, chunks.get());
+        siddhiAppRuntime.shutdown();
+        return received;
+    }
+
     /**
      * Method to serialize the object to byte array.
      *
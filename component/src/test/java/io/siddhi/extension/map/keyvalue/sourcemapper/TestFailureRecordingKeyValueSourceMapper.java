@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.core.exception.MappingFailedException;
+import io.siddhi.core.stream.input.source.InputEventHandler;
+import io.siddhi.core.util.error.handler.model.ErroneousEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * `keyvalue` source mapper that records the failures it reports to Siddhi, so that tests can check which failures
+ * reach the error handling of the source.
+ */
+@Extension(
+        name = "testFailureRecordingKeyValue",
+        namespace = "sourceMapper",
+        description = "`keyvalue` source mapper that records the failures reported by the mapper before they are " +
+                "handled by Siddhi.",
+        examples = @Example(
+                syntax = "@source(type='inMemory', topic='stock', @map(type='testFailureRecordingKeyValue'))\n" +
+                        "define stream FooStream (symbol string, price float, volume long);\n",
+                description = "In this example the failures of the messages received on the `stock` topic are " +
+                        "recorded."
+        )
+)
+public class TestFailureRecordingKeyValueSourceMapper extends KeyValueSourceMapper {
+
+    static final List<ErroneousEvent> FAILED_EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    protected void mapAndProcess(Object eventObject, InputEventHandler inputEventHandler)
+            throws InterruptedException, MappingFailedException {
+        try {
+            super.mapAndProcess(eventObject, inputEventHandler);
+        } catch (MappingFailedException e) {
+            FAILED_EVENTS.addAll(e.getFailures());
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.map.keyvalue.sourcemapper;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.stream.input.source.SourceEventListener;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.core.util.transport.InMemoryBroker;
+import io.siddhi.core.util.transport.OptionHolder;
+import io.siddhi.extension.map.keyvalue.util.BinaryFrameWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link io.siddhi.core.stream.input.source.Source} to receive events through in-memory
+ * transport, and deliver them to the mapper in batches.
+ */
+@Extension(
+        name = "testTrpBatchInMemory",
+        namespace = "source",
+        description = "In-memory source that collects the messages published on a topic, and delivers every " +
+                "`batch.size` messages to the mapper at once, together with the `prop1` and `prop2` values as the " +
+                "requested transport properties.",
+        parameters = {
+                @Parameter(name = "topic", type = DataType.STRING, description = "Subscribes to sent on the "
+                        + "given topic."),
+                @Parameter(name = "batch.size", type = DataType.INT, description = "Number of messages delivered "
+                        + "at once.", optional = true, defaultValue = "1"),
+                @Parameter(name = "batch.type", type = DataType.STRING, description = "`single` to deliver "
+                        + "the messages one at a time, `list` or `array` to deliver them as a `List` or an "
+                        + "`Object[]`, or `frame` to deliver key value maps as the records of a binary frame.",
+                        optional = true, defaultValue = "list")
+        },
+        examples = @Example(
+                syntax = "@source(type='testTrpBatchInMemory', topic='stock', batch.size='3', prop1='foo', " +
+                        "prop2='bar', @map(type='keyvalue'))\n" +
+                        "define stream BarStream (symbol string, price float, volume long)",
+                description = "In this example every three messages published on the `stock` topic are " +
+                        "delivered to the mapper as one list."
+        )
+)
+public class TestTrpBatchInMemorySource extends TestTrpInMemorySource {
+
+    private static final String BATCH_SIZE = "batch.size";
+    private static final String BATCH_TYPE = "batch.type";
+
+    private final List<Object> pending = new ArrayList<>();
+    private final BinaryFrameWriter writer = new BinaryFrameWriter();
+    private int batchSize;
+    private String batchType;
+    private String[] transportProperties;
+
+    @Override
+    public StateFactory<State> init(SourceEventListener sourceEventListener, OptionHolder optionHolder,
+                                    String[] requestedTransportPropertyNames, ConfigReader configReader,
+                                    SiddhiAppContext siddhiAppContext) {
+        StateFactory<State> stateFactory = super.init(sourceEventListener, optionHolder,
+                requestedTransportPropertyNames, configReader, siddhiAppContext);
+        batchSize = Integer.parseInt(optionHolder.validateAndGetStaticValue(BATCH_SIZE, "1"));
+        batchType = optionHolder.validateAndGetStaticValue(BATCH_TYPE, "list");
+        if (!Arrays.asList("single", "list", "array", "frame").contains(batchType)) {
+            throw new SiddhiAppCreationException("Invalid " + BATCH_TYPE + " '" + batchType + "'");
+        }
+        transportProperties = Arrays.copyOf(new String[]{optionHolder.validateAndGetStaticValue("prop1"),
+                optionHolder.validateAndGetStaticValue("prop2")}, requestedTransportPropertyNames.length);
+        String topic = subscriber.getTopic();
+        this.subscriber = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object event) {
+                deliver(event);
+            }
+
+            @Override
+            public String getTopic() {
+                return topic;
+            }
+        };
+        return stateFactory;
+    }
+
+    private synchronized void deliver(Object message) {
+        if (batchType.equals("single")) {
+            sourceEventListener.onEvent(message, transportProperties);
+            return;
+        }
+        pending.add(message);
+        if (pending.size() < batchSize) {
+            return;
+        }
+        switch (batchType) {
+            case "list":
+                sourceEventListener.onEvent(new ArrayList<>(pending), transportProperties);
+                break;
+            case "array":
+                sourceEventListener.onEvent(pending.toArray(), transportProperties);
+                break;
+            default:
+                sourceEventListener.onEvent(toFrame(pending), transportProperties);
+        }
+        pending.clear();
+    }
+
+    private byte[] toFrame(List<Object> messages) {
+        writer.startFrame();
+        try {
+            for (Object message : messages) {
+                writer.startRecord();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) message).entrySet()) {
+                    writer.writeField(BinaryFrameWriter.encodeKeys(new String[]{(String) entry.getKey()})[0],
+                            entry.getValue());
+                }
+                writer.endRecord();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the messages " + messages + " as a frame", e);
+        }
+        writer.endFrame();
+        return writer.toByteArray();
+    }
+}